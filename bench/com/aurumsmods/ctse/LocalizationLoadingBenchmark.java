@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of reading a localization's texts, which {@link Localization} does only once per localization and then caches.
+ * The compiled binary file is what the program reads, the JSON file is the fallback if the binary file is missing or
+ * damaged. Both include reading the resource from the classpath.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalizationLoadingBenchmark {
+    @Param({ "en_US", "de_DE" })
+    public String id;
+    
+    @Benchmark
+    public String[] readCompiled() {
+        return Localization.readCompiledTexts(id);
+    }
+    
+    @Benchmark
+    public String[] readJSON() {
+        return Localization.readJSONTexts(id);
+    }
+}
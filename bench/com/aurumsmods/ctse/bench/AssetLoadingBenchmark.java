@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.CTSe;
+import java.util.concurrent.TimeUnit;
+import javax.swing.ImageIcon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of decoding the stage preview images. The cold start benchmark measures the very first decode in a fresh JVM,
+ * which includes initializing ImageIO and the imaging classes. The program reads the previews from a pack instead, see
+ * {@code PreviewPackBenchmark}, so the PNGs are read from the source folder, which "ant bench" puts on the classpath.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class AssetLoadingBenchmark {
+    @Param({ "PullUpStage", "MoleMazeStage" })
+    public String stageName;
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = "-Djava.awt.headless=true")
+    public ImageIcon coldReadIcon() {
+        return CTSe.ASSET_LOADER.readIcon(String.format("/assets/img/stages/%s.png", stageName));
+    }
+    
+    @Benchmark
+    public ImageIcon readIcon() {
+        return CTSe.ASSET_LOADER.readIcon(String.format("/assets/img/stages/%s.png", stageName));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.format.CourseInfo;
+import com.aurumsmods.ctse.format.GameData;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.SeasonData;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+/**
+ * Creates save files with plausible progress for any game version. These serve as fixtures for the benchmarks, where no
+ * actual save files are at hand.
+ * <p>
+ * Only the public API of {@link KinopioSaveData} is used. An empty save file of the requested version is assembled from
+ * the file layout, read and filled with progress before it is encoded again.
+ * @author Aurum
+ */
+public final class KinopioSaveSamples {
+    private KinopioSaveSamples() { throw new IllegalStateException(); }
+    
+    private static final long FIRST_PLAY_TIME = 1417996800L; // release of the Wii U version
+    private static final long LAST_PLAY_TIME = 1735689600L;
+    
+    /**
+     * Creates the contents of a save file for the specified version. The same seed always yields the same contents.
+     * @param version the game version, one of the {@code KinopioSaveData.VERSION_*} constants.
+     * @param seed the seed for the pseudo-random progress.
+     * @return the save file contents.
+     * @throws KinopioSaveException if the empty save file could not be read.
+     */
+    public static byte[] create(int version, long seed) throws KinopioSaveException {
+        if (version < KinopioSaveData.VERSION_WII_U || version > KinopioSaveData.VERSION_SWITCH_VR)
+            throw new IllegalArgumentException(String.format("Unknown game version: %d", version));
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        KinopioSaveData saveData = new KinopioSaveData();
+        saveData.read(createEmpty(version));
+        
+        int numSeasons = saveData.getNumSeasons();
+        int numCourses = saveData.getNumCourses();
+        
+        // Game data
+        GameData gameData = saveData.getGameData();
+        gameData.flags = random.nextInt(1 << 29);
+        gameData.controlSetting = random.nextInt(1 << 5);
+        gameData.lastPlayTime = random.nextLong(FIRST_PLAY_TIME, LAST_PLAY_TIME);
+        gameData.playerLife = random.nextInt(2, 100);
+        gameData.currentSeasonId = random.nextInt(1, numSeasons + 1);
+        gameData.exist3DWorldSaveData = random.nextBoolean();
+        gameData.maneckFinalFloorCount = random.nextInt(100);
+        gameData.lastUptime = random.nextLong(1L << 32);
+        gameData.moleMazeFinalFloorCount = random.nextInt(20);
+        gameData.needInitAOCLock = version < KinopioSaveData.VERSION_SWITCH_AOC;
+        
+        // Season data
+        for (int i = 0 ; i < numSeasons ; i++) {
+            SeasonData season = saveData.getSeasonData(i);
+            season.bonusCoursePageId = random.nextInt(30);
+            season.bonusCourseTypeCounter = random.nextInt(3);
+            season.lastPlayCourseId = random.nextInt(numCourses);
+        }
+        
+        // Course infos, most players have opened and cleared the majority of pages
+        for (int i = 0 ; i < numCourses ; i++) {
+            CourseInfo course = saveData.getCourseInfo(i);
+            
+            if (random.nextInt(10) < 8) {
+                course.flags = CourseInfo.FLAG_OPEN | CourseInfo.FLAG_CLEAR | (random.nextInt(1 << 4) << 4);
+                course.bestCoin = random.nextInt(300);
+                course.bestTime = random.nextInt(999);
+                course.missCount = random.nextInt(20);
+                course.lastPlayTime = random.nextLong(FIRST_PLAY_TIME, LAST_PLAY_TIME);
+                course.collectItemFlags = random.nextInt(8);
+            }
+            else
+                course.flags = random.nextBoolean() ? CourseInfo.FLAG_OPEN | CourseInfo.FLAG_NEW : CourseInfo.FLAG_LOCK;
+        }
+        
+        return saveData.toByteArray();
+    }
+    
+    /**
+     * Assembles a save file of the specified version that contains nothing but the headers and block sizes.
+     */
+    private static byte[] createEmpty(int version) {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[KinopioSaveData.TOTAL_FILE_SIZE]);
+        buffer.order(version == KinopioSaveData.VERSION_WII_U ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        
+        // The revision distinguishes the Switch versions
+        buffer.putInt(0x04, Math.max(version - KinopioSaveData.VERSION_SWITCH, 0));
+        buffer.putInt(0x08, KinopioSaveData.TOTAL_FILE_SIZE);
+        buffer.putInt(0x0C, KinopioSaveData.GAME_IDENTIFIER);
+        
+        // Blocks start right after the SaveData header
+        buffer.position(0x1C);
+        int gameDataSize = version < KinopioSaveData.VERSION_SWITCH ? GameData.OLD_SIZE : GameData.SIZE;
+        buffer.putInt(gameDataSize);
+        buffer.position(buffer.position() + gameDataSize);
+        
+        for (int i = 0 ; i < KinopioSaveData.getNumSeasons(version) ; i++) {
+            buffer.putInt(SeasonData.SIZE);
+            buffer.position(buffer.position() + SeasonData.SIZE);
+        }
+        
+        buffer.putInt(KinopioSaveData.getNumCourses(version));
+        return buffer.array();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.StageNode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of loading localizations and of looking up texts. The cold start benchmark measures the very first
+ * initialization in a fresh JVM, which includes loading the JSON library's classes. Localizations are cached once they
+ * are loaded, so {@code setLocalization} measures switching between loaded localizations. The cost of reading a
+ * localization's files is measured by {@code LocalizationLoadingBenchmark}.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizationBenchmark {
+    @State(Scope.Benchmark)
+    public static class Localizations {
+        @Param({ "en_US", "de_DE" })
+        public String id;
+        
+        @Setup
+        public void setup() {
+            Localization.init();
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Texts {
+        final String key = "stage.name.PullUpStage";
+        int textId;
+        Localization localization;
+        
+        @Setup
+        public void setup() {
+            Localization.init();
+            localization = Localization.setLocalization("en_US");
+            textId = Localization.getTextId(key);
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Labels {
+        List<StageNode> nodes;
+        
+        @Setup
+        public void setup() {
+            Localization.init();
+            Localization.setLocalization("de_DE");
+            StageNode.init();
+            nodes = StageNode.getTreeModel(KinopioSaveData.VERSION_SWITCH_VR).getVisibleNodes();
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public Localization coldInit() {
+        Localization.init();
+        return Localization.setLocalization("en_US");
+    }
+    
+    @Benchmark
+    public Localization setLocalization(Localizations localizations) {
+        return Localization.setLocalization(localizations.id);
+    }
+    
+    @Benchmark
+    public String getTextByKey(Texts texts) {
+        return texts.localization.getText(texts.key);
+    }
+    
+    @Benchmark
+    public String getTextById(Texts texts) {
+        return texts.localization.getText(texts.textId);
+    }
+    
+    /**
+     * Labels every row of the stage tree like the tree's renderer does when the whole tree is painted.
+     */
+    @Benchmark
+    public int labelStageTree(Labels labels) {
+        int length = 0;
+        
+        for (StageNode node : labels.nodes)
+            length += node.toString().length();
+        
+        return length;
+    }
+}
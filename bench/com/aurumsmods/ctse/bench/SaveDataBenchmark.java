@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.CTSe;
+import com.aurumsmods.ctse.format.CourseInfo;
+import com.aurumsmods.ctse.format.GameData;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the save file codecs for every supported game version. Run with {@code -prof gc} to see allocation rates.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveDataBenchmark {
+    @Param({ "0", "1", "2", "3", "4" }) // VERSION_WII_U through VERSION_SWITCH_VR
+    public int version;
+    
+    private byte[] sample;
+    private KinopioSaveData saveData;
+    private ByteBuffer sectionBuffer;
+    private ByteBuffer paddingBuffer;
+    private GameData gameData;
+    private CourseInfo courseInfo;
+    
+    @Setup
+    public void setup() throws KinopioSaveException {
+        sample = KinopioSaveSamples.create(version, 0x4B494E4FL);
+        saveData = new KinopioSaveData();
+        saveData.read(sample);
+        
+        // The game data section is located right after the file and SaveData headers
+        sectionBuffer = ByteBuffer.wrap(sample.clone());
+        sectionBuffer.order(version == KinopioSaveData.VERSION_WII_U ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        paddingBuffer = ByteBuffer.wrap(new byte[KinopioSaveData.TOTAL_FILE_SIZE]);
+        gameData = saveData.getGameData();
+        courseInfo = saveData.getCourseInfo(0);
+    }
+    
+    @Benchmark
+    public KinopioSaveData read() throws KinopioSaveException {
+        saveData.read(sample);
+        return saveData;
+    }
+    
+    /**
+     * Encodes the save data into a new array. Writing the file itself is left out to keep disk latency out of the result.
+     */
+    @Benchmark
+    public byte[] encode() {
+        return saveData.toByteArray();
+    }
+    
+    @Benchmark
+    public byte[] roundTrip() throws KinopioSaveException {
+        saveData.read(sample);
+        return saveData.toByteArray();
+    }
+    
+    @Benchmark
+    public int checksum() {
+        return KinopioSaveData.calculateChecksum(sample);
+    }
+    
+    /**
+     * Migration alters the save data in place, so every invocation has to read the sample again. Compare with
+     * {@link #read()} to get the cost of the migration itself.
+     */
+    @Benchmark
+    public KinopioSaveData readAndUpdateVersion() throws KinopioSaveException {
+        saveData.read(sample);
+        saveData.updateVersionToSwitchVR();
+        return saveData;
+    }
+    
+    @Benchmark
+    public GameData readGameData() {
+        sectionBuffer.position(0x1C);
+        gameData.read(sectionBuffer);
+        return gameData;
+    }
+    
+    @Benchmark
+    public ByteBuffer writeCourseInfo() {
+        sectionBuffer.position(0);
+        courseInfo.write(sectionBuffer);
+        return sectionBuffer;
+    }
+    
+    @Benchmark
+    public ByteBuffer fillPadding() {
+        paddingBuffer.position(0);
+        CTSe.fillPadding(paddingBuffer, paddingBuffer.capacity());
+        return paddingBuffer;
+    }
+}
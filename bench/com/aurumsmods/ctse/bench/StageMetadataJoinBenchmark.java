@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.format.CourseInfo;
+import com.aurumsmods.ctse.format.PackedStageNodes;
+import com.aurumsmods.ctse.format.StageNode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of joining course records against the stage metadata, once through the {@link StageNode} objects and once
+ * through the packed values of {@link PackedStageNodes}. Both joins count the cleared courses that beat their challenge
+ * time and sum up the collect items of the courses that have them.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageMetadataJoinBenchmark {
+    @State(Scope.Benchmark)
+    public static class Records {
+        @Param({ "1000000" })
+        public int count;
+        
+        int[] versions, courseIds, flags, bestTimes;
+        
+        @Setup
+        public void setup() {
+            StageNode.init();
+            
+            versions = new int[count];
+            courseIds = new int[count];
+            flags = new int[count];
+            bestTimes = new int[count];
+            
+            // Same distribution as the sample saves, only the existing courses of each version are picked
+            Random random = new Random(0x43545365L);
+            
+            for (int i = 0 ; i < count ; i++) {
+                int version = random.nextInt(5);
+                int courseId;
+                
+                do {
+                    courseId = random.nextInt(256);
+                } while (PackedStageNodes.getCourseNode(version, courseId) == PackedStageNodes.NONE);
+                
+                versions[i] = version;
+                courseIds[i] = courseId;
+                flags[i] = random.nextInt(1 << 9);
+                bestTimes[i] = random.nextInt(999);
+            }
+        }
+    }
+    
+    @Benchmark
+    public long joinStageNodes(Records records) {
+        int fastClears = 0;
+        int collectItems = 0;
+        
+        for (int i = 0 ; i < records.count ; i++) {
+            StageNode node = StageNode.getCourseNode(records.versions[i], records.courseIds[i]);
+            
+            if ((records.flags[i] & CourseInfo.FLAG_CLEAR) == 0)
+                continue;
+            if (node.hasChallengeTime() && records.bestTimes[i] <= node.getChallengeTime())
+                fastClears++;
+            if (node.hasDlcCollectItem() || node.getStageType() == StageNode.TYPE_NORMAL)
+                collectItems += node.getCollectItemNum();
+        }
+        
+        return ((long)fastClears << 32) | collectItems;
+    }
+    
+    @Benchmark
+    public long joinPackedNodes(Records records) {
+        int fastClears = 0;
+        int collectItems = 0;
+        
+        for (int i = 0 ; i < records.count ; i++) {
+            long node = PackedStageNodes.getCourseNode(records.versions[i], records.courseIds[i]);
+            
+            if ((records.flags[i] & CourseInfo.FLAG_CLEAR) == 0)
+                continue;
+            if (PackedStageNodes.hasChallengeTime(node) && records.bestTimes[i] <= PackedStageNodes.getChallengeTime(node))
+                fastClears++;
+            if (PackedStageNodes.hasDlcCollectItem(node) || PackedStageNodes.getStageType(node) == StageNode.TYPE_NORMAL)
+                collectItems += PackedStageNodes.getCollectItemNum(node);
+        }
+        
+        return ((long)fastClears << 32) | collectItems;
+    }
+}
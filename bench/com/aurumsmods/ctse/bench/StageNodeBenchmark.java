@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.bench;
+
+import com.aurumsmods.ctse.format.StageNode;
+import com.aurumsmods.ctse.format.StageTreeModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of loading the stage metadata and of the tree and page queries built on top of it. The cold start benchmark
+ * measures the very first initialization in a fresh JVM, class loading included.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageNodeBenchmark {
+    @State(Scope.Benchmark)
+    public static class Metadata {
+        @Setup
+        public void setup() {
+            StageNode.init();
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Query {
+        @Param({ "0", "1", "2", "3", "4" }) // VERSION_WII_U through VERSION_SWITCH_VR
+        public int version;
+        
+        @Param({ "1", "5" })
+        public int season;
+        
+        final List<StageNode> output = new ArrayList<>(35);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public StageNode coldInit() {
+        StageNode.init();
+        return StageNode.getRootNode();
+    }
+    
+    @Benchmark
+    public StageNode[] createNodes() {
+        return StageNode.createNodes();
+    }
+    
+    @Benchmark
+    public StageTreeModel getTreeModel(Metadata metadata, Query query) {
+        return StageNode.getTreeModel(query.version);
+    }
+    
+    @Benchmark
+    public List<StageNode> collectSeasonActualPages(Metadata metadata, Query query) {
+        StageNode.collectSeasonActualPages(query.output, query.version, query.season);
+        return query.output;
+    }
+    
+    @Benchmark
+    public List<StageNode> collectSeasonValidBonusPages(Metadata metadata, Query query) {
+        StageNode.collectSeasonValidBonusPages(query.output, query.version, query.season);
+        return query.output;
+    }
+    
+    @Benchmark
+    public StageNode getCourseNode(Metadata metadata, Query query) {
+        return StageNode.getCourseNode(query.version, 3);
+    }
+    
+    @Benchmark
+    public StageNode findNode(Metadata metadata, Query query) {
+        return StageNode.findNode(query.version, "PullUpStage");
+    }
+}
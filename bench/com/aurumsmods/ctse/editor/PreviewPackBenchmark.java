@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of reading stage previews from the {@link PreviewPack}, the counterpart to decoding their PNGs in
+ * {@code AssetLoadingBenchmark}. The cold start benchmark measures opening the pack and reading the first preview in a
+ * fresh JVM. The pack is extracted into the cache folder by the first fork, the others only map it.
+ * @author Aurum
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PreviewPackBenchmark {
+    @Param({ "PullUpStage", "MoleMazeStage" })
+    public String stageName;
+    
+    /**
+     * The pack for the warm benchmark. It is kept apart so that the cold start benchmark does not open the pack twice.
+     */
+    @State(Scope.Benchmark)
+    public static class OpenPack {
+        PreviewPack pack;
+        
+        @Setup
+        public void setup() {
+            pack = PreviewPack.open();
+            
+            if (pack == null)
+                throw new IllegalStateException("The preview pack could not be opened.");
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = "-Djava.awt.headless=true")
+    public BufferedImage coldRead() {
+        return PreviewPack.open().read(stageName);
+    }
+    
+    @Benchmark
+    public BufferedImage read(OpenPack state) {
+        return state.pack.read(stageName);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.bench.KinopioSaveSamples;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.StageNode;
+import com.aurumsmods.ctse.format.StageTreeModel;
+import com.aurumsmods.ctse.format.StageTreeViewModel;
+import java.awt.GraphicsEnvironment;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures how long the editor widgets take to refresh. The widgets are created without an editor window, so this also
+ * works with {@code java.awt.headless=true}. Every operation is timed individually and reported as latency percentiles.
+ * <p>
+ * Stage previews are read in the background, so selecting a stage does not include reading its preview. "preview shown"
+ * measures the time from the start of the selection until the stage's preview is shown instead of the placeholder. The
+ * harness waits for this before it selects the next stage.
+ * <p>
+ * Arguments: {@code [rounds] [warmup rounds]}, defaults are 20 and 5.
+ * @author Aurum
+ */
+public final class WidgetRefreshHarness implements EditorContext {
+    private WidgetRefreshHarness() {}
+    
+    private static final long PREVIEW_TIMEOUT = 10L; // seconds
+    
+    /**
+     * Collects the latencies of a single operation.
+     */
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int count = 0;
+        
+        void add(long value) {
+            if (count == nanos.length)
+                nanos = Arrays.copyOf(nanos, count * 2);
+            nanos[count++] = value;
+        }
+        
+        void clear() {
+            count = 0;
+        }
+        
+        String summarize(String name) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return String.format("%-32s %8d %10.1f %10.1f %10.1f %10.1f %10.1f", name, count, sorted[0] / 1000.0,
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                    sorted[count - 1] / 1000.0);
+        }
+        
+        private static double percentile(long[] sorted, double p) {
+            return sorted[(int)Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1000.0;
+        }
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    
+    private final KinopioSaveData saveData = new KinopioSaveData();
+    private final Map<String, Samples> samples = new LinkedHashMap<>();
+    private StageNode selectedNode;
+    private GameDataWidget gameDataWidget;
+    private CourseInfoWidget courseInfoWidget;
+    private SeasonDataWidget seasonDataWidget;
+    private StageTreeViewModel view;
+    private JTree tree;
+    private long previewStart;              // start of the selection whose preview is awaited, only used on the EDT
+    private CountDownLatch previewShown;    // counted down once the selected stage's preview is shown
+    
+    @Override
+    public KinopioSaveData getSaveData() {
+        return saveData;
+    }
+    
+    @Override
+    public StageNode getSelectedNode() {
+        return selectedNode;
+    }
+    
+    @Override
+    public void needSaveChanges() {
+    }
+    
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException, KinopioSaveException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int warmupRounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        System.out.printf("Headless: %b%n", GraphicsEnvironment.isHeadless());
+        
+        Localization.init();
+        StageNode.init();
+        Localization.setLocalization("en_US");
+        
+        new WidgetRefreshHarness().run(rounds, warmupRounds);
+    }
+    
+    // Swing components are not thread-safe, so the widgets are only used on the EDT just like in the editor. The EDT is
+    // left between operations, so that previews that were read in the background can be shown.
+    private void run(int rounds, int warmupRounds)
+            throws InterruptedException, InvocationTargetException, KinopioSaveException
+    {
+        SwingUtilities.invokeAndWait(() -> {
+            long start = System.nanoTime();
+            gameDataWidget = new GameDataWidget(this);
+            courseInfoWidget = new CourseInfoWidget(this);
+            courseInfoWidget.previewListener = this::previewShown;
+            seasonDataWidget = new SeasonDataWidget(this);
+            view = new StageTreeViewModel(StageNode.getTreeModel(KinopioSaveData.VERSION_SWITCH_VR));
+            tree = new JTree(view);
+            tree.setRootVisible(false);
+            System.out.printf("Widget construction: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        });
+        
+        for (int i = 0 ; i < warmupRounds ; i++)
+            runRound();
+        
+        for (Samples s : samples.values())
+            s.clear();
+        
+        for (int i = 0 ; i < rounds ; i++)
+            runRound();
+        
+        System.out.printf("%-32s %8s %10s %10s %10s %10s %10s%n", "Operation (us)", "Count", "Min", "p50", "p90", "p99", "Max");
+        
+        for (Map.Entry<String, Samples> entry : samples.entrySet())
+            System.out.println(entry.getValue().summarize(entry.getKey()));
+    }
+    
+    private void runRound() throws InterruptedException, InvocationTargetException, KinopioSaveException {
+        for (int version = KinopioSaveData.VERSION_WII_U ; version <= KinopioSaveData.VERSION_SWITCH_VR ; version++) {
+            saveData.read(KinopioSaveSamples.create(version, version));
+            StageTreeModel model = StageNode.getTreeModel(version);
+            
+            SwingUtilities.invokeAndWait(() -> {
+                long start = System.nanoTime();
+                gameDataWidget.reloadData();
+                record("GameDataWidget.reloadData", start);
+                
+                // Tree reload as done after opening a save file
+                start = System.nanoTime();
+                view.setModel(model);
+                KinopioSaveEditor.expandTree(tree);
+                record("tree reload", start);
+            });
+            
+            // Select every node once
+            for (StageNode node : model.getVisibleNodes()) {
+                SwingUtilities.invokeAndWait(() -> selectNode(node));
+                
+                if (previewShown != null && !previewShown.await(PREVIEW_TIMEOUT, TimeUnit.SECONDS))
+                    System.err.printf("The preview of %s was not shown%n", node.getStageName());
+            }
+        }
+        
+        // Language changes
+        SwingUtilities.invokeAndWait(() -> {
+            for (String id : Localization.getLocalizations().keySet()) {
+                Localization.setLocalization(id);
+                
+                long start = System.nanoTime();
+                gameDataWidget.localizeAll();
+                courseInfoWidget.localizeAll();
+                seasonDataWidget.localizeAll();
+                record("localizeAll (all widgets)", start);
+                
+                start = System.nanoTime();
+                view.relabel();
+                record("tree relabel", start);
+            }
+        });
+    }
+    
+    private void selectNode(StageNode node) {
+        selectedNode = node;
+        previewShown = null;
+        
+        if (node.getCourseId() != -1) {
+            courseInfoWidget.courseInfo = saveData.getCourseInfo(node.getCourseId());
+            long start = System.nanoTime();
+            
+            // Cached previews are shown during reloadData already
+            if (node.hasPreviewImage()) {
+                previewStart = start;
+                previewShown = new CountDownLatch(1);
+            }
+            
+            courseInfoWidget.reloadData();
+            record("CourseInfoWidget.reloadData", start);
+        }
+        else if (node.isSeason()) {
+            seasonDataWidget.seasonData = saveData.getSeasonData(node.getSeasonId() - 1);
+            long start = System.nanoTime();
+            seasonDataWidget.reloadData();
+            record("SeasonDataWidget.reloadData", start);
+        }
+    }
+    
+    private void previewShown() {
+        if (previewShown != null) {
+            record("preview shown", previewStart);
+            previewShown.countDown();
+        }
+    }
+    
+    private void record(String operation, long start) {
+        long elapsed = System.nanoTime() - start;
+        samples.computeIfAbsent(operation, (k) -> new Samples()).add(elapsed);
+    }
+}
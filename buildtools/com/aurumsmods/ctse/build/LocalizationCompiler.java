@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.build;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.TreeSet;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Compiles localization JSON files into a binary form that the program reads without parsing JSON. For every
+ * localization listed in LocalizationInfo.json, its {@code <id>.json} is compiled into {@code <id>.bin} in the output
+ * folder. This runs as part of the Ant build, see the "-generate-localizations" target in build.xml, which also
+ * compiles a JSON file again once it is newer than its binary version. The program does not check this itself. The
+ * JSON files stay the files to be edited.
+ * <p>
+ * All values are big-endian:
+ * <pre>
+ * 0x00  char[4]  magic "CTSL"
+ * 0x04  u16      format version, currently 2
+ * 0x06  u16      reserved, always 0
+ * 0x08  u32      number of texts
+ * 0x0C  u32      size of the string pool in bytes
+ * 0x10  index    per text: u16 key length, u16 text length
+ * ....  pool     UTF-8 encoded keys and texts, in the order of the index
+ * </pre>
+ * <p>
+ * Arguments: {@code <LocalizationInfo.json> <output folder>}
+ * @author Aurum
+ */
+public final class LocalizationCompiler {
+    private LocalizationCompiler() { throw new IllegalStateException(); }
+    
+    public static final int MAGIC = 0x4354534C; // "CTSL"
+    public static final int FORMAT_VERSION = 2;
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LocalizationCompiler <LocalizationInfo.json> <output folder>");
+            System.exit(2);
+        }
+        
+        Path info = Paths.get(args[0]);
+        Path outputDir = Paths.get(args[1]);
+        Files.createDirectories(outputDir);
+        
+        TreeSet<String> ids = new TreeSet(readJSON(info).keySet());
+        
+        for (String id : ids) {
+            Path json = info.resolveSibling(id + ".json");
+            Path output = outputDir.resolve(id + ".bin");
+            
+            try {
+                Files.write(output, compile(Files.readAllBytes(json)));
+                System.out.printf("Compiled %s%n", output);
+            }
+            catch (JSONException | IllegalArgumentException ex) {
+                System.err.printf("%s: %s%n", json, ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+    
+    private static JSONObject readJSON(Path file) throws IOException {
+        return new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+    
+    private static byte[] compile(byte[] json) throws IOException {
+        JSONObject content = new JSONObject(new String(json, StandardCharsets.UTF_8));
+        TreeSet<String> keys = new TreeSet(content.keySet());
+        
+        // Build the string pool and the index
+        ByteArrayOutputStream pool = new ByteArrayOutputStream(json.length);
+        ByteArrayOutputStream index = new ByteArrayOutputStream(keys.size() * 4);
+        DataOutputStream indexOut = new DataOutputStream(index);
+        
+        for (String key : keys) {
+            writeString(indexOut, pool, key);
+            writeString(indexOut, pool, content.getString(key));
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream(0x10 + index.size() + pool.size());
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(FORMAT_VERSION);
+        data.writeShort(0);
+        data.writeInt(keys.size());
+        data.writeInt(pool.size());
+        index.writeTo(data);
+        pool.writeTo(data);
+        data.flush();
+        
+        return out.toByteArray();
+    }
+    
+    private static void writeString(DataOutputStream index, ByteArrayOutputStream pool, String string)
+            throws IOException
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        
+        if (bytes.length > 0xFFFF)
+            throw new IllegalArgumentException(String.format("string longer than 65535 bytes: %.40s...", string));
+        
+        index.writeShort(bytes.length);
+        pool.write(bytes);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.build;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+
+/**
+ * Packs the stage preview PNGs into a single file of decoded pixel data, so that the program can show previews without
+ * decoding any PNG. This runs as part of the Ant build, see the "-generate-previews" target in build.xml. The PNGs stay
+ * the files to be edited, but they are not copied into the program.
+ * <p>
+ * All values are big-endian:
+ * <pre>
+ * 0x00  char[4]  magic "CTSP"
+ * 0x04  u16      format version, currently 1
+ * 0x06  u16      reserved, always 0
+ * 0x08  u32      CRC-32 of everything after the header
+ * 0x0C  u32      number of images
+ * 0x10  index    per image, sorted by name: u32 name offset, u16 name length, u16 width, u16 height, u16 reserved,
+ *                u32 pixel offset
+ * ....  names    ASCII names without the ".png" extension, offsets are absolute
+ * ....  pixels   per image, rows from top to bottom with 3 bytes per pixel in R, G, B order, offsets are absolute
+ * </pre>
+ * <p>
+ * The written file is filtered so that the jar compresses it well: every byte is stored as its difference to the byte
+ * three positions before it, which turns most pixels into small values. The first three bytes are stored as they are.
+ * The program undoes this while extracting the pack, so the extracted copy has the layout above.
+ * <p>
+ * Arguments: {@code <image folder> <output file>}
+ * @author Aurum
+ */
+public final class PreviewPacker {
+    private PreviewPacker() { throw new IllegalStateException(); }
+    
+    public static final int MAGIC = 0x43545350; // "CTSP"
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 0x10;
+    public static final int INDEX_ENTRY_SIZE = 16;
+    public static final int FILTER_DISTANCE = 3; // bytes per pixel
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PreviewPacker <image folder> <output file>");
+            System.exit(2);
+        }
+        
+        File[] files = new File(args[0]).listFiles((dir, name) -> name.endsWith(".png"));
+        
+        if (files == null) {
+            System.err.printf("%s is not a folder%n", args[0]);
+            System.exit(1);
+        }
+        
+        List<String> names = new ArrayList(files.length);
+        List<BufferedImage> images = new ArrayList(files.length);
+        
+        for (File file : files)
+            names.add(file.getName().substring(0, file.getName().length() - 4));
+        
+        names.sort(null);
+        
+        for (String name : names) {
+            BufferedImage image = ImageIO.read(new File(args[0], name + ".png"));
+            
+            if (image == null || image.getWidth() > 0xFFFF || image.getHeight() > 0xFFFF) {
+                System.err.printf("%s.png: not a supported image%n", name);
+                System.exit(1);
+            }
+            
+            images.add(toRGB(image));
+        }
+        
+        Path output = Paths.get(args[1]);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        
+        try (OutputStream out = Files.newOutputStream(output)) {
+            out.write(filter(pack(names, images)));
+        }
+        
+        System.out.printf("Packed %d previews into %s%n", names.size(), output);
+    }
+    
+    private static BufferedImage toRGB(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR)
+            return image;
+        
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        converted.createGraphics().drawImage(image, 0, 0, null);
+        return converted;
+    }
+    
+    private static byte[] filter(byte[] data) {
+        byte[] filtered = data.clone();
+        
+        for (int i = FILTER_DISTANCE ; i < data.length ; i++)
+            filtered[i] = (byte)(data[i] - data[i - FILTER_DISTANCE]);
+        
+        return filtered;
+    }
+    
+    private static byte[] pack(List<String> names, List<BufferedImage> images) throws IOException {
+        int count = names.size();
+        ByteArrayOutputStream nameBytes = new ByteArrayOutputStream();
+        
+        for (String name : names)
+            nameBytes.write(name.getBytes(StandardCharsets.US_ASCII));
+        
+        int nameOffset = HEADER_SIZE + count * INDEX_ENTRY_SIZE;
+        int pixelOffset = nameOffset + nameBytes.size();
+        
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(body);
+        
+        for (int i = 0 ; i < count ; i++) {
+            BufferedImage image = images.get(i);
+            int length = names.get(i).length();
+            
+            data.writeInt(nameOffset);
+            data.writeShort(length);
+            data.writeShort(image.getWidth());
+            data.writeShort(image.getHeight());
+            data.writeShort(0);
+            data.writeInt(pixelOffset);
+            
+            nameOffset += length;
+            pixelOffset += image.getWidth() * image.getHeight() * 3;
+        }
+        
+        nameBytes.writeTo(data);
+        
+        // The raster's data elements of a TYPE_3BYTE_BGR image are in R, G, B order, regardless of the memory layout
+        for (BufferedImage image : images)
+            data.write((byte[])image.getRaster().getDataElements(0, 0, image.getWidth(), image.getHeight(), null));
+        
+        data.flush();
+        
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + body.size());
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeShort(FORMAT_VERSION);
+        header.writeShort(0);
+        header.writeInt((int)crc.getValue());
+        header.writeInt(count);
+        body.writeTo(header);
+        header.flush();
+        
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.build;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compiles StageNodeInfo.csv into the Java source of {@code com.aurumsmods.ctse.format.StageNodeTable}. The table holds
+ * the sorted stage names and one packed {@code long} per node, so nothing has to be parsed when the program starts. This
+ * runs as part of the Ant build before the sources are compiled, see the "-generate-stage-nodes" target in build.xml.
+ * <p>
+ * Arguments: {@code <StageNodeInfo.csv> <generated sources folder>}
+ * @author Aurum
+ */
+public final class StageNodeTableGenerator {
+    private StageNodeTableGenerator() { throw new IllegalStateException(); }
+    
+    // Enum types are stored as their indices, these have to match StageNode's constants
+    private static final List<String> ICONS = Arrays.asList(
+        "Default", "Season", "Chapter", "Star", "Shine", "Crown", "ToadBrigade", "GhostPlayer", "GhostPlayerMaze", "Bonus"
+    );
+    private static final List<String> TYPES = Arrays.asList(
+        "Season", "Prologue", "Illustration", "IllustrationDemo", "MiniGame", "TrickArt", "Normal", "Bonus",
+        "Special3DWorld", "SpecialCherry", "SpecialManek", "SpecialPrologue", "SpecialBonus", "SpecialOther", "Labyrinth"
+    );
+    private static final String[] FLAG_COLUMNS = {
+        "HasDotKinopio", "HasDlcCollectItem", "HasBadgeCondition", "HasChallengeTime", "IsVRStage", "HasPreviewImage"
+    };
+    
+    /**
+     * A single row of StageNodeInfo.csv.
+     */
+    private static final class Row {
+        final String[] values;
+        final int line;
+        
+        Row(String[] values, int line) {
+            this.values = values;
+            this.line = line;
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StageNodeTableGenerator <StageNodeInfo.csv> <generated sources folder>");
+            System.exit(2);
+        }
+        
+        Path csv = Paths.get(args[0]);
+        Path output = Paths.get(args[1], "com", "aurumsmods", "ctse", "format", "StageNodeTable.java");
+        
+        try {
+            generate(csv, output);
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.printf("%s: %s%n", csv, ex.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void generate(Path csv, Path output) throws IOException {
+        // Read rows and collect stage names
+        List<String> header;
+        List<Row> rows = new ArrayList();
+        TreeSet<String> names = new TreeSet();
+        
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            header = Arrays.asList(reader.readLine().split(";", -1));
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                
+                Row row = new Row(line.split(";", -1), rows.size() + 2);
+                
+                if (row.values.length != header.size())
+                    throw new IllegalArgumentException(String.format("line %d: expected %d columns", row.line, header.size()));
+                
+                rows.add(row);
+                names.add(row.values[header.indexOf("StageName")]);
+            }
+        }
+        
+        List<String> sortedNames = new ArrayList(names);
+        
+        // Write the table
+        Files.createDirectories(output.getParent());
+        
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            out.println("// Generated from StageNodeInfo.csv by com.aurumsmods.ctse.build.StageNodeTableGenerator. Do not edit.");
+            out.println("package com.aurumsmods.ctse.format;");
+            out.println();
+            out.println("/**");
+            out.println(" * Stage metadata, one packed node per row of StageNodeInfo.csv in file order.");
+            out.println(" */");
+            out.println("final class StageNodeTable {");
+            out.println("    private StageNodeTable() { throw new IllegalStateException(); }");
+            out.println("    ");
+            out.println("    /**");
+            out.println("     * All distinct stage names in ascending order.");
+            out.println("     */");
+            out.println("    static final String[] NAMES = {");
+            
+            for (String name : sortedNames)
+                out.printf("        \"%s\",%n", name);
+            
+            out.println("    };");
+            out.println("    ");
+            out.println("    /**");
+            out.println("     * Packed nodes. From the lowest byte upwards: name index, data id, page id, stage type, depth and icon id, game");
+            out.println("     * version and collect item count, flags, challenge time. Page id and stage type are signed.");
+            out.println("     */");
+            out.println("    static final long[] NODES = {");
+            
+            for (Row row : rows) {
+                String name = get(header, row, "StageName");
+                out.printf("        0x%016XL, // %s%n", pack(header, row, sortedNames.indexOf(name)), name);
+            }
+            
+            out.println("    };");
+            out.println("    ");
+            out.println("    static int getNameIndex(long node)     { return (int)node & 0xFF; }");
+            out.println("    static int getDataId(long node)        { return (int)(node >>> 8) & 0xFF; }");
+            out.println("    static int getPageId(long node)        { return (byte)(node >>> 16); }");
+            out.println("    static int getStageType(long node)     { return (byte)(node >>> 24); }");
+            out.println("    static int getDepth(long node)         { return (int)(node >>> 32) & 0xF; }");
+            out.println("    static int getIconId(long node)        { return (int)(node >>> 36) & 0xF; }");
+            out.println("    static int getVersion(long node)       { return (int)(node >>> 40) & 0xF; }");
+            out.println("    static int getCollectItemNum(long node) { return (int)(node >>> 44) & 0xF; }");
+            out.println("    static int getFlags(long node)         { return (int)(node >>> 48) & 0xFF; }");
+            out.println("    static int getChallengeTime(long node) { return (int)(node >>> 56) & 0xFF; }");
+            out.println("    ");
+            out.println("    static long pack(int nameIndex, int dataId, int pageId, int stageType, int depth, int iconId, int version,");
+            out.println("            int collectItemNum, int flags, int challengeTime) {");
+            out.println("        return (nameIndex & 0xFFL) | (dataId & 0xFFL) << 8 | (pageId & 0xFFL) << 16 | (stageType & 0xFFL) << 24");
+            out.println("             | (depth & 0xFL) << 32 | (iconId & 0xFL) << 36 | (version & 0xFL) << 40 | (collectItemNum & 0xFL) << 44");
+            out.println("             | (flags & 0xFFL) << 48 | (challengeTime & 0xFFL) << 56;");
+            out.println("    }");
+            out.println("}");
+        }
+        
+        System.out.printf("Generated %s with %d nodes and %d names%n", output, rows.size(), sortedNames.size());
+    }
+    
+    private static long pack(List<String> header, Row row, int nameIndex) {
+        int flags = 0;
+        
+        for (int i = 0 ; i < FLAG_COLUMNS.length ; i++) {
+            if (get(header, row, FLAG_COLUMNS[i]).equalsIgnoreCase("wahr"))
+                flags |= 1 << i;
+        }
+        
+        return field(row, "name index", nameIndex, 0, 255)
+             | field(row, "CourseId", getInt(header, row, "CourseId"), 0, 255) << 8
+             | field(row, "PageId", getInt(header, row, "PageId"), -128, 127) << 16
+             | field(row, "StageType", getEnum(header, row, "StageType", TYPES), -1, 127) << 24
+             | field(row, "NodeDepth", getInt(header, row, "NodeDepth"), 1, 15) << 32
+             | field(row, "NodeIcon", getEnum(header, row, "NodeIcon", ICONS), 0, 15) << 36
+             | field(row, "GameVersion", getInt(header, row, "GameVersion"), 0, 15) << 40
+             | field(row, "CollectItemNum", getInt(header, row, "CollectItemNum"), 0, 15) << 44
+             | (long)flags << 48
+             | field(row, "ChallengeTime", getInt(header, row, "ChallengeTime"), 0, 255) << 56;
+    }
+    
+    private static long field(Row row, String column, int value, int min, int max) {
+        if (value < min || value > max)
+            throw new IllegalArgumentException(String.format("line %d: %s %d out of range [%d, %d]", row.line, column, value, min, max));
+        
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(max, -min - 1)) + (min < 0 ? 1 : 0);
+        return value & ((1L << bits) - 1);
+    }
+    
+    private static String get(List<String> header, Row row, String column) {
+        int index = header.indexOf(column);
+        
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("missing column %s", column));
+        
+        return row.values[index];
+    }
+    
+    private static int getInt(List<String> header, Row row, String column) {
+        try {
+            return Integer.parseInt(get(header, row, column));
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format("line %d: %s is not a number", row.line, column));
+        }
+    }
+    
+    private static int getEnum(List<String> header, Row row, String column, List<String> names) {
+        String value = get(header, row, column);
+        int index = names.indexOf(value);
+        
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("line %d: unknown %s %s", row.line, column, value));
+        
+        return index;
+    }
+}
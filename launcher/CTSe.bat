@@ -0,0 +1,11 @@
+@echo off
+rem Starts CTSe with a class-data sharing archive, which shortens the startup. The archive only works for this location and
+rem Java runtime, so it is created by a training run on the first start. Delete CTSe.jsa after moving CTSe or updating Java.
+setlocal
+set "CTSE_DIR=%~dp0"
+
+if not exist "%CTSE_DIR%CTSe.jsa" (
+    java -XX:ArchiveClassesAtExit="%CTSE_DIR%CTSe.jsa" -Xlog:cds=off -jar "%CTSE_DIR%CTSe.jar" --train
+)
+
+java -XX:SharedArchiveFile="%CTSE_DIR%CTSe.jsa" %JAVA_OPTS% -jar "%CTSE_DIR%CTSe.jar" %*
@@ -0,0 +1,10 @@
+#!/bin/sh
+# Starts CTSe with a class-data sharing archive, which shortens the startup. The archive only works for this location and
+# Java runtime, so it is created by a training run on the first start. Delete CTSe.jsa after moving CTSe or updating Java.
+dir=$(cd "$(dirname "$0")" && pwd)
+
+if [ ! -f "$dir/CTSe.jsa" ]; then
+    java -XX:ArchiveClassesAtExit="$dir/CTSe.jsa" -Xlog:cds=off -jar "$dir/CTSe.jar" --train
+fi
+
+exec java -XX:SharedArchiveFile="$dir/CTSe.jsa" $JAVA_OPTS -jar "$dir/CTSe.jar" "$@"
@@ -18,15 +18,27 @@ package com.aurumsmods.ctse;
 
 import com.aurumsmods.ajul.ResourceLoader;
 import com.aurumsmods.ajul.SwingUtil;
+import com.aurumsmods.ctse.cli.CommandLine;
+import com.aurumsmods.ctse.diag.DiagnosticsRecording;
+import com.aurumsmods.ctse.diag.EdtWatchdog;
+import com.aurumsmods.ctse.editor.IconRegistry;
 import com.aurumsmods.ctse.editor.KinopioSaveEditor;
+import com.aurumsmods.ctse.editor.TrainingRun;
 import com.aurumsmods.ctse.format.StageNode;
 import com.aurumsmods.ctse.format.KinopioSaveException;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.prefs.Preferences;
+import javax.swing.SwingUtilities;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
@@ -37,7 +49,6 @@ public class CTSe {
     private CTSe() { throw new IllegalStateException(); }
     
     public static final ResourceLoader ASSET_LOADER = new ResourceLoader(CTSe.class);
-    public static final BufferedImage PROGRAM_ICON = ASSET_LOADER.readImage("/assets/icon.png");
     
     public static final String AUTHOR = "Aurum";
     public static final String TITLE = "CTSe";
@@ -47,13 +58,104 @@ public class CTSe {
     public static final String FULL_TITLE = String.join(" -- ", LONG_TITLE, VERSION, COPYRIGHT);
     
     public static void main(String[] args) throws IOException, KinopioSaveException {
-        SwingUtil.trySetSystemUI();
+        args = startDiagnosticsRecording(args);
+        
+        if (args.length == 1 && args[0].equals("--train")) {
+            train();
+            return;
+        }
+        
+        // Any arguments select the command line mode, no window is opened
+        if (args.length > 0) {
+            System.exit(CommandLine.run(args));
+            return;
+        }
+        
+        EdtWatchdog.startIfEnabled();
+        
+        // Parse the metadata, decode the editor's icons and load the editor classes while the look and feel is set up on
+        // the main thread. The window depends on all of these, so it is created once they are done.
+        ExecutorService startup = Executors.newFixedThreadPool(3, (Runnable task) -> {
+            Thread thread = new Thread(task, "CTSe startup");
+            thread.setDaemon(true);
+            return thread;
+        });
         
+        // The editor classes take their icons from the IconRegistry, so they are only loaded once all icons are decoded.
+        // Waiting for the icons on a pool thread would block a thread that may be needed to decode them.
+        CompletableFuture<Void> icons = IconRegistry.preload(startup).thenRun(() -> StartupTrace.mark("icons decoded"));
+        CompletableFuture<Void> ready = CompletableFuture.allOf(
+            CompletableFuture.runAsync(StartupTrace.phase("stage nodes", StageNode::init), startup),
+            CompletableFuture.runAsync(StartupTrace.phase("localization", () -> {
+                Localization.init();
+                initSettings();
+            }), startup),
+            icons.thenRunAsync(StartupTrace.phase("editor classes", CTSe::preloadEditorClasses), startup)
+        );
+        
+        StartupTrace.phase("look and feel", SwingUtil::trySetSystemUI).run();
+        ready.join();
+        startup.shutdown();
+        
+        // The other languages are read in the background, so changing the language later on only has to relabel
+        Localization.preloadLocalizations();
+        
+        SwingUtilities.invokeLater(StartupTrace.phase("editor window", () -> {
+            new KinopioSaveEditor().setVisible(true);
+            SwingUtilities.invokeLater(() -> StartupTrace.mark("first frame"));
+        }));
+    }
+    
+    /**
+     * Runs through the editor's typical paths without showing a window, then exits. This is used to record the classes
+     * for a class-data sharing archive, see the "cds" target in build.xml.
+     */
+    private static void train() {
+        SwingUtil.trySetSystemUI();
         Localization.init();
         StageNode.init();
-        initSettings();
+        Localization.setLocalization("en_US");
+        
+        try {
+            TrainingRun.run();
+        }
+        catch (InterruptedException | InvocationTargetException ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+        
+        System.exit(0);
+    }
+    
+    private static void preloadEditorClasses() {
+        // The editor classes' static initializers take their icons from the IconRegistry, which has decoded them by now
+        try {
+            ClassLoader loader = CTSe.class.getClassLoader();
+            Class.forName("com.aurumsmods.ctse.editor.KinopioSaveEditor", true, loader);
+            Class.forName("com.aurumsmods.ctse.editor.CourseInfoWidget", true, loader);
+        }
+        catch (ClassNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    /**
+     * Starts a flight recording if the first argument is {@code --jfr=<file>}. The recording is written on exit.
+     * @param args the program arguments.
+     * @return the remaining arguments.
+     */
+    private static String[] startDiagnosticsRecording(String[] args) {
+        if (args.length == 0 || !args[0].startsWith("--jfr="))
+            return args;
+        
+        try {
+            DiagnosticsRecording.start(Paths.get(args[0].substring(6)));
+        }
+        catch (IOException | ParseException ex) {
+            System.err.printf("Could not start diagnostics recording: %s%n", ex.getMessage());
+        }
         
-        new KinopioSaveEditor().setVisible(true);
+        return Arrays.copyOfRange(args, 1, args.length);
     }
     
     // -------------------------------------------------------------------------------------------------------------------------
@@ -16,9 +16,16 @@
 
 package com.aurumsmods.ctse;
 
+import com.aurumsmods.ctse.diag.FlightEvents;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
-import org.json.JSONArray;
+import java.util.concurrent.ConcurrentHashMap;
 import org.json.JSONObject;
 
 /**
@@ -28,8 +35,16 @@ public final class Localization {
     //--------------------------------------------------------------------------------------------------------------------------
     // Global localization handler
     
-    private static Localization CURRENT;
+    // Written while holding the class lock, read without it. CURRENT is always written before GENERATION, so a reader that
+    // sees a new generation also sees the localization it belongs to.
+    private static volatile Localization CURRENT;
+    private static volatile int GENERATION;
     private static Map<String, Object> LOCALIZATIONS; // unmodifiable
+    private static final Map<String, Localization> CACHE = new ConcurrentHashMap<>();
+    
+    public static boolean isInitialized() {
+        return LOCALIZATIONS != null;
+    }
     
     public static void init() {
         if (LOCALIZATIONS != null)
@@ -46,12 +61,80 @@ public final class Localization {
         LOCALIZATIONS = Collections.unmodifiableMap(raw.toMap());
     }
     
+    /**
+     * Returns the editor's current localization. Localizations themselves are immutable, so code that does not run on
+     * the event dispatch thread, or that needs several languages at once, should be given a {@link Localization}
+     * explicitly instead of reading this default.
+     * @return the current localization.
+     */
     public static Localization getLocalization() {
         return CURRENT;
     }
     
-    public static Localization setLocalization(String id) {
-        return CURRENT = new Localization(id);
+    public static synchronized Localization setLocalization(String id) {
+        FlightEvents.LocalizationSwitch event = FlightEvents.beginLocalizationSwitch();
+        boolean cached = CACHE.containsKey(id);
+        Localization localization = loadLocalization(id);
+        CURRENT = localization;
+        GENERATION++;
+        FlightEvents.commit(event, localization.getId(), cached);
+        
+        return localization;
+    }
+    
+    /**
+     * Returns a counter that changes whenever the current localization is set. Labels derived from the current
+     * localization can be cached along with this counter and only have to be looked up again once it changes. Read the
+     * generation before {@link #getLocalization()}, so that a label is never cached with a newer generation than its
+     * localization.
+     * @return the localization generation.
+     */
+    public static int getGeneration() {
+        return GENERATION;
+    }
+    
+    /**
+     * Returns the localization with the given ID. Localizations are loaded only once and kept afterwards. Unknown IDs
+     * fall back to en_US.
+     * @param id the localization ID, for example "de_DE".
+     * @return the localization.
+     */
+    public static Localization loadLocalization(String id) {
+        if (!LOCALIZATIONS.containsKey(id))
+            id = "en_US";
+        
+        return CACHE.computeIfAbsent(id, Localization::new);
+    }
+    
+    /**
+     * Loads all localizations on a background thread, so that changing the language later on does not have to read
+     * anything.
+     */
+    public static void preloadLocalizations() {
+        Thread thread = new Thread(() -> {
+            for (String id : LOCALIZATIONS.keySet())
+                loadLocalization(id);
+        }, "CTSe localization preload");
+        
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    public static String formatCacheReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-24s %7s %9s%n", "Localization", "texts", "est. KB"));
+        
+        for (String id : LOCALIZATIONS.keySet()) {
+            Localization localization = CACHE.get(id);
+            
+            if (localization != null)
+                report.append(String.format("%-24s %7d %9.1f%n", id, localization.getTextCount(), localization.estimateMemoryUsage() / 1024.0));
+            else
+                report.append(String.format("%-24s %7s %9s%n", id, "-", "not loaded"));
+        }
+        
+        return report.toString();
     }
     
     public static Map<String, Object> getLocalizations() {
@@ -62,40 +145,200 @@ public final class Localization {
         return CURRENT.getId();
     }
     
+    //--------------------------------------------------------------------------------------------------------------------------
+    // Text IDs
+    
+    private static final Map<String, Integer> TEXT_IDS = new ConcurrentHashMap<>();
+    private static final Object TEXT_ID_LOCK = new Object();
+    private static volatile String[] TEXT_KEYS = new String[1024]; // [text ID], replaced under TEXT_ID_LOCK
+    private static int NUM_TEXT_IDS = 0; // guarded by TEXT_ID_LOCK
+    
+    /**
+     * Returns the ID of a text key. IDs are assigned on first use and stay the same while the program runs, so callers
+     * that look up the same text repeatedly should keep the ID instead of the key. Since an ID is never released, this is
+     * meant for fixed keys that are known when a class is initialized. Use {@link #getText(String)} for anything else.
+     * @param key the text key.
+     * @return the text ID.
+     */
+    public static int getTextId(String key) {
+        Integer id = TEXT_IDS.get(key);
+        
+        if (id == null)
+            id = TEXT_IDS.computeIfAbsent(key, Localization::assignTextId);
+        
+        return id;
+    }
+    
+    private static int assignTextId(String key) {
+        synchronized (TEXT_ID_LOCK) {
+            String[] keys = TEXT_KEYS;
+            
+            if (NUM_TEXT_IDS == keys.length)
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            
+            keys[NUM_TEXT_IDS] = key;
+            TEXT_KEYS = keys;
+            return NUM_TEXT_IDS++;
+        }
+    }
+    
+    /**
+     * Returns the key of a text ID. This does not lock, the ID's key is visible to every thread that obtained the ID from
+     * {@link #getTextId(String)}.
+     * @param id the text ID.
+     * @return the text key.
+     */
+    public static String getTextKey(int id) {
+        return TEXT_KEYS[id];
+    }
+    
     //--------------------------------------------------------------------------------------------------------------------------
     // Localization implementation
     
     private final String id;
-    private final JSONObject content;
+    private final String[] texts; // [text ID], null if this localization has no such text
+    
+    private static final int COMPILED_MAGIC = 0x4354534C; // "CTSL"
+    private static final int COMPILED_FORMAT_VERSION = 2;
     
     private Localization(String id) {
-        if (!LOCALIZATIONS.containsKey(id))
-            id = "en_US";
-        
         this.id = id;
-        content = CTSe.readJSONObject(String.format("/assets/text/%s.json", id));
+        
+        // The build compiles the JSON files into binary ones, see LocalizationCompiler in the buildtools folder, and compiles
+        // them again whenever a JSON file changes. The JSON file is only read if its binary version is missing or damaged.
+        String[] compiled = readCompiledTexts(id);
+        texts = compiled != null ? compiled : readJSONTexts(id);
+    }
+    
+    static String[] readJSONTexts(String id) {
+        byte[] json = CTSe.ASSET_LOADER.readBinary(String.format("/assets/text/%s.json", id));
+        JSONObject content = new JSONObject(new String(json, StandardCharsets.UTF_8));
+        String[] texts = new String[0];
+        
+        for (String key : content.keySet())
+            texts = putText(texts, key, content.getString(key));
+        
+        return texts;
+    }
+    
+    static String[] readCompiledTexts(String id) {
+        byte[] data;
+        
+        try (InputStream in = CTSe.ASSET_LOADER.openStream(String.format("/assets/text/%s.bin", id))) {
+            if (in == null)
+                return null;
+            
+            data = in.readAllBytes();
+        }
+        catch (IOException ex) {
+            System.err.printf("Could not read %s.bin: %s%n", id, ex.getMessage());
+            return null;
+        }
+        
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        
+        try {
+            if (buf.getInt() != COMPILED_MAGIC || buf.getShort() != COMPILED_FORMAT_VERSION || buf.getShort() != 0) {
+                System.err.printf("%s.bin has an unknown format, reading %s.json instead%n", id, id);
+                return null;
+            }
+            
+            int numTexts = buf.getInt();
+            int poolSize = buf.getInt();
+            int position = buf.position() + numTexts * 4; // keys and texts follow each other in the pool
+            
+            if (numTexts < 0 || position + poolSize != data.length)
+                throw new IndexOutOfBoundsException();
+            
+            String[] texts = new String[0];
+            
+            for (int i = 0 ; i < numTexts ; i++) {
+                int keyLength = buf.getShort() & 0xFFFF;
+                int textLength = buf.getShort() & 0xFFFF;
+                
+                String key = new String(data, position, keyLength, StandardCharsets.UTF_8);
+                String text = new String(data, position + keyLength, textLength, StandardCharsets.UTF_8);
+                texts = putText(texts, key, text);
+                position += keyLength + textLength;
+            }
+            
+            if (position != data.length)
+                throw new IndexOutOfBoundsException();
+            
+            return texts;
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            System.err.printf("%s.bin is damaged, reading %s.json instead%n", id, id);
+            return null;
+        }
+    }
+    
+    private static String[] putText(String[] texts, String key, String text) {
+        int textId = getTextId(key);
+        
+        if (textId >= texts.length)
+            texts = Arrays.copyOf(texts, Math.max(textId + 1, texts.length * 2));
+        
+        texts[textId] = text;
+        return texts;
     }
     
     public String getId() {
         return id;
     }
     
-    public String getText(String key) {
-        if (content != null && content.has(key))
-            return content.getString(key);
-        return key;
+    public int getTextCount() {
+        int count = 0;
+        
+        for (String text : texts) {
+            if (text != null)
+                count++;
+        }
+        
+        return count;
     }
     
-    public JSONArray getTextList(String key) {
-        if (content != null && content.has(key))
-            return content.getJSONArray(key);
-        return null;
+    /**
+     * Estimates the heap memory taken by this localization's texts. This assumes compressed references and compact
+     * strings, which are the JVM's defaults for heaps below 32 GB.
+     * @return the estimated size in bytes.
+     */
+    public long estimateMemoryUsage() {
+        long size = align(16 + 4L * texts.length);
+        
+        for (String text : texts) {
+            if (text != null) {
+                boolean latin1 = text.chars().allMatch((c) -> c <= 0xFF);
+                size += 24 + align(16 + (latin1 ? text.length() : 2L * text.length()));
+            }
+        }
+        
+        return size;
+    }
+    
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+    
+    /**
+     * Returns the text for a text key. Unlike {@link #getTextId(String)}, this does not assign an ID to keys that no
+     * localization has. If this localization does not have the text, the key is returned instead.
+     * @param key the text key.
+     * @return the localized text.
+     */
+    public String getText(String key) {
+        Integer textId = TEXT_IDS.get(key);
+        String text = textId != null && textId < texts.length ? texts[textId] : null;
+        return text != null ? text : key;
     }
     
-    public String getIndexedText(String key, int index) {
-        JSONArray list = getTextList(key);
-        if (list != null && 0 <= index && index < list.length())
-            return list.getString(index);
-        return String.format("%s.%d", key, index);
+    /**
+     * Returns the text for a text ID. If this localization does not have the text, the text's key is returned instead.
+     * @param textId the text ID, see {@link #getTextId(String)}.
+     * @return the localized text.
+     */
+    public String getText(int textId) {
+        String text = textId < texts.length ? texts[textId] : null;
+        return text != null ? text : getTextKey(textId);
     }
 }
@@ -23,18 +23,38 @@ import java.util.Objects;
  */
 public class LocalizeString {
     private final String string;
+    private final int textId;
+    private String label;
+    private int labelGeneration = -1;
     
     public LocalizeString(String key) {
         string = Objects.requireNonNull(key);
+        textId = Localization.getTextId(key);
     }
     
     public String getKey() {
         return string;
     }
     
+    public String localize(Localization localization) {
+        return localization.getText(textId);
+    }
+    
+    /**
+     * Returns the text in the current localization. Combo boxes and lists call this on every paint, so the text is kept
+     * until the localization changes.
+     * @return the localized text.
+     */
     @Override
     public String toString() {
-        return Localization.getLocalization().getText(string);
+        int generation = Localization.getGeneration();
+        
+        if (labelGeneration != generation) {
+            label = localize(Localization.getLocalization());
+            labelGeneration = generation;
+        }
+        
+        return label;
     }
     
     @Override
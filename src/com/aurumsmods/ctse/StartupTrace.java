@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times the startup phases if the {@code ctse.startupTrace} system property is set to true. Every phase is printed with its
+ * start time relative to the JVM's start, its duration and the thread that ran it.
+ * @author Aurum
+ */
+final class StartupTrace {
+    private StartupTrace() { throw new IllegalStateException(); }
+    
+    private static final boolean ENABLED = Boolean.getBoolean("ctse.startupTrace");
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final long ORIGIN_UPTIME_MILLIS = ENABLED ? ManagementFactory.getRuntimeMXBean().getUptime() : 0L;
+    
+    /**
+     * Wraps the given task so that its execution is reported as a phase.
+     * @param name the phase's name.
+     * @param task the phase's work.
+     * @return the timed task.
+     */
+    static Runnable phase(String name, Runnable task) {
+        if (!ENABLED)
+            return task;
+        
+        return () -> {
+            long start = System.nanoTime();
+            task.run();
+            report(name, start, System.nanoTime());
+        };
+    }
+    
+    /**
+     * Reports a point in time, for example the first frame being shown.
+     * @param name the event's name.
+     */
+    static void mark(String name) {
+        if (ENABLED) {
+            long now = System.nanoTime();
+            report(name, now, now);
+        }
+    }
+    
+    private static void report(String name, long start, long end) {
+        System.err.printf("startup: %-20s at %8.1f ms took %7.1f ms on %s%n", name, sinceJvmStart(start),
+            (end - start) / 1e6, Thread.currentThread().getName());
+    }
+    
+    private static double sinceJvmStart(long nanos) {
+        return ORIGIN_UPTIME_MILLIS + (nanos - ORIGIN_NANOS) / 1e6;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.cli;
+
+import com.aurumsmods.ctse.CTSe;
+import com.aurumsmods.ctse.format.CourseInfo;
+import com.aurumsmods.ctse.format.GameData;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Scriptable command line interface. Every command receives its own working directory and output stream, which allows
+ * the same commands to be served by the {@link Daemon} for several clients at once.
+ * @author Aurum
+ */
+public final class CommandLine {
+    private CommandLine() { throw new IllegalStateException(); }
+    
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURE = 1;
+    public static final int EXIT_USAGE = 2;
+    
+    private static final String[] VERSION_NAMES = {
+        "Wii U", "3DS", "Switch v1.0.0", "Switch v1.2.0", "Switch v1.3.0"
+    };
+    
+    /**
+     * Runs the command line mode of the program. This also covers the daemon and watch modes, which block until they are
+     * shut down.
+     * @param args the command line arguments.
+     * @return the process exit code.
+     */
+    public static int run(String[] args) {
+        if (args[0].equals("daemon")) {
+            Path socket = args.length > 1 ? Path.of(args[1]) : Daemon.getDefaultSocketPath();
+            
+            try {
+                new Daemon(socket).serve();
+                return EXIT_OK;
+            }
+            catch (IOException ex) {
+                System.err.printf("Daemon failed: %s%n", ex.getMessage());
+                return EXIT_FAILURE;
+            }
+        }
+        
+        if (args[0].equals("watch"))
+            return Watcher.run(Arrays.copyOfRange(args, 1, args.length));
+        
+        return execute(args, Path.of("").toAbsolutePath(), System.out, System.err);
+    }
+    
+    /**
+     * Executes a single command.
+     * @param args the command name followed by its arguments.
+     * @param workDir the directory that relative file paths are resolved against.
+     * @param out the stream that receives regular output.
+     * @param err the stream that receives error messages.
+     * @return the exit code of the command.
+     */
+    public static int execute(String[] args, Path workDir, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            printUsage(err);
+            return EXIT_USAGE;
+        }
+        
+        String[] params = Arrays.copyOfRange(args, 1, args.length);
+        
+        switch(args[0]) {
+            case "info":
+                return params.length > 0 ? info(params, workDir, out, err) : usageError(err);
+            case "validate":
+                return params.length > 0 ? validate(params, workDir, out, err) : usageError(err);
+            case "migrate":
+                return params.length == 1 || params.length == 2 ? migrate(params, workDir, out, err) : usageError(err);
+            case "report":
+                return params.length > 0 ? CompletionReport.run(params, workDir, out, err) : usageError(err);
+            case "help":
+                printUsage(out);
+                return EXIT_OK;
+            default:
+                err.printf("Unknown command: %s%n", args[0]);
+                return usageError(err);
+        }
+    }
+    
+    /**
+     * Runs the codecs a number of times so that the JIT has compiled them before the first actual command arrives.
+     */
+    static void warmUp() throws KinopioSaveException {
+        KinopioSaveData saveData = new KinopioSaveData();
+        
+        for (int i = 0 ; i < 2000 ; i++)
+            saveData.read(saveData.toByteArray());
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Commands
+    
+    private static int info(String[] files, Path workDir, PrintStream out, PrintStream err) {
+        KinopioSaveData saveData = new KinopioSaveData();
+        int result = EXIT_OK;
+        
+        for (String file : files) {
+            Path path = workDir.resolve(file);
+            
+            if (!tryRead(saveData, path, err)) {
+                result = EXIT_FAILURE;
+                continue;
+            }
+            
+            GameData gameData = saveData.getGameData();
+            out.printf("%s: %s, lives %d, episode %d, cleared %d/%d courses%n", path,
+                    getVersionName(saveData.getGameVersion()), gameData.playerLife, gameData.currentSeasonId,
+                    countClearedCourses(saveData), saveData.getNumCourses());
+        }
+        
+        return result;
+    }
+    
+    private static int validate(String[] files, Path workDir, PrintStream out, PrintStream err) {
+        KinopioSaveData saveData = new KinopioSaveData();
+        int result = EXIT_OK;
+        
+        for (String file : files) {
+            Path path = workDir.resolve(file);
+            
+            if (tryRead(saveData, path, err))
+                out.printf("%s: OK (%s)%n", path, getVersionName(saveData.getGameVersion()));
+            else
+                result = EXIT_FAILURE;
+        }
+        
+        return result;
+    }
+    
+    private static int migrate(String[] files, Path workDir, PrintStream out, PrintStream err) {
+        KinopioSaveData saveData = new KinopioSaveData();
+        Path input = workDir.resolve(files[0]);
+        Path output = files.length > 1 ? workDir.resolve(files[1]) : input;
+        
+        if (!tryRead(saveData, input, err))
+            return EXIT_FAILURE;
+        
+        int oldVersion = saveData.getGameVersion();
+        saveData.updateVersionToSwitchVR();
+        
+        try {
+            saveData.write(output.toFile());
+        }
+        catch (IOException ex) {
+            err.printf("%s: %s%n", output, ex.getMessage());
+            return EXIT_FAILURE;
+        }
+        
+        out.printf("%s: %s -> %s, written to %s%n", input, getVersionName(oldVersion),
+                getVersionName(saveData.getGameVersion()), output);
+        return EXIT_OK;
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Helper functions
+    
+    static String getVersionName(int version) {
+        return VERSION_NAMES[version];
+    }
+    
+    static int countClearedCourses(KinopioSaveData saveData) {
+        int numCleared = 0;
+        
+        for (int i = 0 ; i < saveData.getNumCourses() ; i++) {
+            if ((saveData.getCourseInfo(i).flags & CourseInfo.FLAG_CLEAR) != 0)
+                numCleared++;
+        }
+        
+        return numCleared;
+    }
+    
+    private static boolean tryRead(KinopioSaveData saveData, Path path, PrintStream err) {
+        try {
+            saveData.read(path.toFile());
+            return true;
+        }
+        catch (IOException | KinopioSaveException ex) {
+            err.printf("%s: %s%n", path, ex.getMessage());
+            return false;
+        }
+    }
+    
+    private static int usageError(PrintStream err) {
+        printUsage(err);
+        return EXIT_USAGE;
+    }
+    
+    private static void printUsage(PrintStream out) {
+        out.println(CTSe.LONG_TITLE + " " + CTSe.VERSION);
+        out.println("Usage: CTSe [command] [arguments]");
+        out.println("  info <file>...             Prints version and progress of save files");
+        out.println("  validate <file>...         Checks whether save files can be loaded");
+        out.println("  migrate <input> [output]   Updates a save file to Switch v1.3.0");
+        out.println("  report [options] <file>... Prints completion reports of save files");
+        out.println("    --locales=<id>,...       Languages of the reports (default: all)");
+        out.println("    --workers=<n>            Number of worker threads (default: all cores)");
+        out.println("    --output=<dir>           Writes <file>.<locale>.txt files instead of printing");
+        out.println("  daemon [socket]            Serves commands over a Unix domain socket");
+        out.println("  watch [options] <dir>...   Processes save files dropped into folders");
+        out.println("    --actions=<a>,...        validate, migrate, index, archive (default: validate)");
+        out.println("    --workers=<n>            Number of worker threads (default: 2)");
+        out.println("  help                       Prints this message");
+        out.println("Without a command, the editor window is opened.");
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.cli;
+
+import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.format.CourseInfo;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.StageNode;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders completion reports of save files in one or more languages. Every report is rendered with an explicit
+ * {@link Localization}, so the reports of all save files and languages are produced in parallel without touching the
+ * editor's current language.
+ * @author Aurum
+ */
+final class CompletionReport {
+    private CompletionReport() { throw new IllegalStateException(); }
+    
+    private static final int TEXT_BEST_TIME = Localization.getTextId("courseinfowidget.lblBestTime.text");
+    
+    /**
+     * Parses the report command's arguments and renders the reports. Without an output folder, the reports are printed
+     * in the order of the files and languages.
+     * @param args the options and save files.
+     * @param workDir the directory that relative file paths are resolved against.
+     * @param out the stream that receives regular output.
+     * @param err the stream that receives error messages.
+     * @return the exit code of the command.
+     */
+    static int run(String[] args, Path workDir, PrintStream out, PrintStream err) {
+        initMetadata();
+        
+        List<Localization> localizations = new ArrayList<>();
+        int numWorkers = Runtime.getRuntime().availableProcessors();
+        Path outputDir = null;
+        List<Path> files = new ArrayList<>();
+        
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--locales=")) {
+                    for (String id : arg.substring(10).split(",")) {
+                        if (!Localization.getLocalizations().containsKey(id.trim()))
+                            throw new IllegalArgumentException("Unknown localization " + id.trim());
+                        
+                        localizations.add(Localization.loadLocalization(id.trim()));
+                    }
+                }
+                else if (arg.startsWith("--workers="))
+                    numWorkers = Math.max(1, Integer.parseInt(arg.substring(10)));
+                else if (arg.startsWith("--output="))
+                    outputDir = workDir.resolve(arg.substring(9));
+                else
+                    files.add(workDir.resolve(arg));
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            err.printf("Invalid option: %s%n", ex.getMessage());
+            return CommandLine.EXIT_USAGE;
+        }
+        
+        if (files.isEmpty()) {
+            err.println("No save files specified.");
+            return CommandLine.EXIT_USAGE;
+        }
+        
+        if (localizations.isEmpty()) {
+            for (String id : Localization.getLocalizations().keySet())
+                localizations.add(Localization.loadLocalization(id));
+        }
+        
+        ExecutorService workers = Executors.newFixedThreadPool(numWorkers, (r) -> new Thread(r, "CTSe-Report-Worker"));
+        List<Future<String>> reports = new ArrayList<>(files.size() * localizations.size());
+        Path target = outputDir;
+        
+        for (Path file : files) {
+            for (Localization localization : localizations)
+                reports.add(workers.submit(() -> renderReport(file, localization, target)));
+        }
+        
+        workers.shutdown();
+        int result = CommandLine.EXIT_OK;
+        
+        for (int i = 0 ; i < reports.size() ; i++) {
+            Path file = files.get(i / localizations.size());
+            
+            try {
+                String report = reports.get(i).get();
+                
+                if (target == null)
+                    out.print(report);
+            }
+            catch (ExecutionException ex) {
+                err.printf("%s: %s%n", file, ex.getCause().getMessage());
+                result = CommandLine.EXIT_FAILURE;
+            }
+            catch (InterruptedException ex) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+                return CommandLine.EXIT_FAILURE;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Initializes the metadata on first use in a one-shot run. The daemon has initialized it before serving any requests.
+     */
+    private static synchronized void initMetadata() {
+        if (!Localization.isInitialized())
+            Localization.init();
+        if (!StageNode.isInitialized())
+            StageNode.init();
+    }
+    
+    private static String renderReport(Path file, Localization localization, Path outputDir)
+            throws IOException, KinopioSaveException
+    {
+        KinopioSaveData saveData = new KinopioSaveData();
+        saveData.read(file.toFile());
+        
+        String report = render(saveData, file, localization);
+        
+        if (outputDir == null)
+            return report;
+        
+        String name = String.format("%s.%s.txt", file.getFileName(), localization.getId());
+        Files.writeString(outputDir.resolve(name), report, StandardCharsets.UTF_8);
+        return null;
+    }
+    
+    /**
+     * Renders the completion report of a save file.
+     * @param saveData the save data.
+     * @param file the save file, only its name is printed.
+     * @param localization the language of the stage names and conditions.
+     * @return the report.
+     */
+    static String render(KinopioSaveData saveData, Path file, Localization localization) {
+        int version = saveData.getGameVersion();
+        StringBuilder report = new StringBuilder(8192);
+        report.append(String.format("%s (%s, %s)%n", file.getFileName(), CommandLine.getVersionName(version), localization.getId()));
+        
+        for (StageNode node : StageNode.getTreeModel(version).getVisibleNodes()) {
+            if (node.isSeason()) {
+                report.append(String.format("%n%s%n", node.getLocalizedName(localization)));
+                continue;
+            }
+            
+            if (node.getCourseId() == -1)
+                continue;
+            
+            CourseInfo course = saveData.getCourseInfo(node.getCourseId());
+            report.append("  ".repeat(node.getDepth() - 1));
+            report.append(checkBox(course.flags, CourseInfo.FLAG_CLEAR)).append(node.getLocalizedName(localization));
+            
+            if (node.hasBadgeCondition()) {
+                report.append("; ").append(checkBox(course.flags, CourseInfo.FLAG_BADGE_CONDITION_0));
+                report.append(localization.getText(node.getBadgeConditionTextId()));
+            }
+            
+            if (node.hasChallengeTime() && course.bestTime >= 0) {
+                report.append(String.format("; %s %03d / %03d", localization.getText(TEXT_BEST_TIME), course.bestTime,
+                        node.getChallengeTime()));
+            }
+            
+            report.append(System.lineSeparator());
+        }
+        
+        report.append(String.format("%nCleared %d/%d courses%n%n", CommandLine.countClearedCourses(saveData),
+                saveData.getNumCourses()));
+        return report.toString();
+    }
+    
+    private static String checkBox(int flags, int flag) {
+        return (flags & flag) != 0 ? "[x] " : "[ ] ";
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.cli;
+
+import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.StageNode;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a warmed-up JVM resident and serves command line requests over a Unix domain socket.
+ * <p>
+ * A request consists of the client's working directory followed by the command line arguments. Each of these strings is
+ * terminated by a NUL character and the client shuts down its output once the request is complete. The daemon streams
+ * the command output back and finishes the response with a NUL character followed by the decimal exit code.
+ * <p>
+ * The socket is only created inside a directory that no other user can access, so the file permissions of the socket
+ * itself never matter. A connection that sends no request at all is used to check whether a daemon is alive.
+ * @author Aurum
+ */
+public final class Daemon {
+    static final String SHUTDOWN_COMMAND = "shutdown";
+    private static final Set<PosixFilePermission> PRIVATE_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final long SHUTDOWN_TIMEOUT = 30L;
+    
+    private final Path socketPath;
+    private final ExecutorService workers;
+    private ServerSocketChannel server;
+    
+    public Daemon(Path socket) {
+        socketPath = socket;
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (r) -> {
+            Thread thread = new Thread(r, "CTSe-Daemon-Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public static Path getDefaultSocketPath() {
+        return DaemonClient.getDefaultSocketPath();
+    }
+    
+    /**
+     * Loads all metadata, warms up the codecs and accepts requests until a client sends the shutdown command.
+     * @throws IOException if the socket could not be bound, its directory is not private or another daemon is already
+     * listening on it.
+     */
+    public void serve() throws IOException {
+        preparePrivateDirectory(socketPath.toAbsolutePath().getParent());
+        
+        if (isAlive(socketPath))
+            throw new IOException(String.format("Another daemon is already listening on %s.", socketPath));
+        
+        try {
+            Localization.init();
+            StageNode.init();
+            Localization.setLocalization("en_US");
+            CommandLine.warmUp();
+        }
+        catch (KinopioSaveException ex) {
+            throw new IOException("Could not warm up save data codecs.", ex);
+        }
+        
+        // A socket file left behind by a crashed daemon would make binding fail
+        Files.deleteIfExists(socketPath);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        
+        System.err.printf("CTSe daemon listening on %s%n", socketPath);
+        
+        try {
+            while (server.isOpen()) {
+                SocketChannel client;
+                
+                try {
+                    client = server.accept();
+                }
+                catch (IOException ex) {
+                    if (!server.isOpen())
+                        break; // closed by shutdown request
+                    throw ex;
+                }
+                
+                workers.execute(() -> handle(client));
+            }
+        }
+        finally {
+            server.close();
+            Files.deleteIfExists(socketPath);
+            awaitWorkers();
+        }
+    }
+    
+    private void awaitWorkers() {
+        workers.shutdown();
+        
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+                System.err.printf("Daemon requests still running after %d seconds, exiting anyway.%n", SHUTDOWN_TIMEOUT);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Creates the directory that holds the socket with owner-only permissions. An existing directory is accepted if it
+     * belongs to the current user. The default directory is tightened if necessary, any other directory has to be private
+     * already.
+     */
+    private static void preparePrivateDirectory(Path dir) throws IOException {
+        if (Files.notExists(dir)) {
+            try {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PRIVATE_DIRECTORY));
+            }
+            catch (UnsupportedOperationException ex) {
+                // Not a POSIX file system, the default permissions have to do
+                Files.createDirectories(dir);
+            }
+            return;
+        }
+        
+        Set<PosixFilePermission> permissions;
+        
+        try {
+            permissions = Files.getPosixFilePermissions(dir);
+        }
+        catch (UnsupportedOperationException ex) {
+            return;
+        }
+        
+        if (!Files.getOwner(dir).getName().equals(System.getProperty("user.name")))
+            throw new IOException(String.format("Socket directory %s belongs to another user.", dir));
+        
+        if (permissions.equals(PRIVATE_DIRECTORY))
+            return;
+        
+        if (!dir.equals(getDefaultSocketPath().getParent()))
+            throw new IOException(String.format("Socket directory %s is accessible by other users.", dir));
+        
+        Files.setPosixFilePermissions(dir, PRIVATE_DIRECTORY);
+    }
+    
+    private static boolean isAlive(Path socket) throws IOException {
+        if (Files.notExists(socket))
+            return false;
+        
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+        }
+        catch (ConnectException ex) {
+            return false; // stale socket file
+        }
+    }
+    
+    private void handle(SocketChannel client) {
+        try (client) {
+            List<String> request = readRequest(new BufferedInputStream(Channels.newInputStream(client)));
+            
+            if (request.isEmpty())
+                return; // liveness check of a starting daemon
+            
+            OutputStream rawOut = Channels.newOutputStream(client);
+            PrintStream out = new PrintStream(rawOut, false, StandardCharsets.UTF_8);
+            int exitCode;
+            boolean shutdown = false;
+            
+            if (request.size() < 2) {
+                out.println("Malformed request.");
+                exitCode = CommandLine.EXIT_USAGE;
+            }
+            else if (request.size() == 2 && request.get(1).equals(SHUTDOWN_COMMAND)) {
+                out.println("CTSe daemon shutting down.");
+                exitCode = CommandLine.EXIT_OK;
+                shutdown = true;
+            }
+            else {
+                // A failing command must not leave the client without an exit code
+                try {
+                    Path workDir = Path.of(request.get(0));
+                    String[] args = request.subList(1, request.size()).toArray(new String[0]);
+                    exitCode = CommandLine.execute(args, workDir, out, out);
+                }
+                catch (RuntimeException ex) {
+                    System.err.printf("Daemon request %s failed:%n", request.subList(1, request.size()));
+                    ex.printStackTrace();
+                    out.printf("Internal error: %s%n", ex);
+                    exitCode = CommandLine.EXIT_FAILURE;
+                }
+            }
+            
+            out.print('\0');
+            out.print(exitCode);
+            out.flush();
+            
+            // Only stop accepting once the client has its reply
+            if (shutdown)
+                server.close();
+        }
+        catch (IOException ex) {
+            System.err.printf("Daemon request failed: %s%n", ex.getMessage());
+        }
+    }
+    
+    private static List<String> readRequest(InputStream in) throws IOException {
+        List<String> fields = new ArrayList<>();
+        ByteArrayOutputStream field = new ByteArrayOutputStream(256);
+        int b;
+        
+        while ((b = in.read()) >= 0) {
+            if (b == 0) {
+                fields.add(field.toString(StandardCharsets.UTF_8));
+                field.reset();
+            }
+            else
+                field.write(b);
+        }
+        
+        return fields;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Thin client that forwards its arguments to a running {@link Daemon} and streams back the results. This class does not
+ * touch any other class of the program so that it starts as quickly as the JVM allows. The socket can be specified using
+ * the {@code ctse.socket} system property.
+ * @author Aurum
+ */
+public final class DaemonClient {
+    private DaemonClient() { throw new IllegalStateException(); }
+    
+    public static void main(String[] args) throws IOException {
+        String socketProperty = System.getProperty("ctse.socket");
+        Path socket = socketProperty != null ? Path.of(socketProperty) : getDefaultSocketPath();
+        
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            
+            // Send working directory and arguments, each terminated by NUL
+            OutputStream out = Channels.newOutputStream(channel);
+            ByteArrayOutputStream request = new ByteArrayOutputStream(256);
+            writeField(request, Path.of("").toAbsolutePath().toString());
+            
+            for (String arg : args)
+                writeField(request, arg);
+            
+            out.write(request.toByteArray());
+            out.flush();
+            channel.shutdownOutput();
+            
+            // Stream output until the NUL that precedes the exit code
+            InputStream in = Channels.newInputStream(channel);
+            byte[] buf = new byte[8192];
+            ByteArrayOutputStream exitCode = null;
+            int len;
+            
+            while ((len = in.read(buf)) > 0) {
+                int start = 0;
+                
+                if (exitCode == null) {
+                    for (int i = 0 ; i < len ; i++) {
+                        if (buf[i] == 0) {
+                            System.out.write(buf, 0, i);
+                            exitCode = new ByteArrayOutputStream(4);
+                            start = i + 1;
+                            break;
+                        }
+                    }
+                    
+                    if (exitCode == null) {
+                        System.out.write(buf, 0, len);
+                        continue;
+                    }
+                }
+                
+                exitCode.write(buf, start, len - start);
+            }
+            
+            System.out.flush();
+            System.exit(exitCode != null ? parseExitCode(exitCode.toString(StandardCharsets.US_ASCII)) : 1);
+        }
+    }
+    
+    /**
+     * Returns the socket that the daemon listens on and clients connect to by default. It is declared here rather than in
+     * {@link Daemon} so that the client does not have to load the daemon's classes.
+     * @return the default socket path.
+     */
+    static Path getDefaultSocketPath() {
+        return Path.of(System.getProperty("java.io.tmpdir"), String.format("ctse-%s", System.getProperty("user.name")),
+                "daemon.sock");
+    }
+    
+    // The daemon may have closed the connection before it wrote the exit code, e.g. if it died during the request
+    private static int parseExitCode(String exitCode) {
+        try {
+            return Integer.parseInt(exitCode.trim());
+        }
+        catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+    
+    private static void writeField(ByteArrayOutputStream request, String field) {
+        request.writeBytes(field.getBytes(StandardCharsets.UTF_8));
+        request.write(0);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.cli;
+
+import com.aurumsmods.ctse.format.GameData;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches drop folders for new or modified save files and runs a configurable set of actions on them.
+ * <p>
+ * File system events only tell that a file is being written, not that the writer is done. Every event therefore starts
+ * polling the file's size until it stops changing. Complete save files are handed to a bounded worker pool as soon as
+ * they have the expected size, while files of any other size get a longer grace period before they are processed (and
+ * rejected by validation).
+ * @author Aurum
+ */
+final class Watcher {
+    enum Action { VALIDATE, MIGRATE, INDEX, ARCHIVE }
+    
+    private static final long POLL_INTERVAL_MS = 5;        // delay between two size checks
+    private static final long SETTLE_TIMEOUT_MS = 1000;    // grace period for files that do not have the expected size
+    private static final int QUEUE_CAPACITY = 64;          // pending files before the poller has to help out
+    private static final String INDEX_FILE_NAME = "ctse-index.csv";
+    private static final String ARCHIVE_DIR_NAME = "archive";
+    private static final DateTimeFormatter ARCHIVE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    /**
+     * Tracks a file whose writer may not be finished yet.
+     */
+    private static final class Pending {
+        final long detectedAt;
+        long lastSize = -1;
+        long stableSince;
+        
+        Pending(long time) {
+            detectedAt = time;
+        }
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    
+    private final EnumSet<Action> actions;
+    private final WatchService watchService;
+    private final ScheduledExecutorService poller;
+    private final ThreadPoolExecutor workers;
+    private final Map<Path, Pending> pending;
+    private final Map<Path, FileTime> ownWrites; // files written by the migrate action, their events are ignored
+    
+    private Watcher(EnumSet<Action> actions, int numWorkers) throws IOException {
+        this.actions = actions;
+        watchService = FileSystems.getDefault().newWatchService();
+        poller = Executors.newSingleThreadScheduledExecutor((r) -> new Thread(r, "CTSe-Watch-Poller"));
+        workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), (r) -> new Thread(r, "CTSe-Watch-Worker"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pending = new ConcurrentHashMap<>();
+        ownWrites = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Parses the watch command's arguments and watches the specified folders until the process is terminated.
+     * @param args the options and folders to be watched.
+     * @return the process exit code.
+     */
+    static int run(String[] args) {
+        EnumSet<Action> actions = EnumSet.of(Action.VALIDATE);
+        int numWorkers = 2;
+        List<Path> folders = new ArrayList<>();
+        
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--actions=")) {
+                    actions.clear();
+                    
+                    for (String action : arg.substring(10).split(","))
+                        actions.add(Action.valueOf(action.trim().toUpperCase(Locale.ROOT)));
+                }
+                else if (arg.startsWith("--workers="))
+                    numWorkers = Math.max(1, Integer.parseInt(arg.substring(10)));
+                else
+                    folders.add(Path.of(arg).toAbsolutePath());
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.printf("Invalid option: %s%n", ex.getMessage());
+            return CommandLine.EXIT_USAGE;
+        }
+        
+        if (folders.isEmpty()) {
+            System.err.println("No folders to watch specified.");
+            return CommandLine.EXIT_USAGE;
+        }
+        
+        try {
+            Watcher watcher = new Watcher(actions, numWorkers);
+            
+            for (Path folder : folders) {
+                folder.register(watcher.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                System.err.printf("Watching %s, actions %s%n", folder, actions);
+            }
+            
+            watcher.watch();
+            return CommandLine.EXIT_OK;
+        }
+        catch (IOException ex) {
+            System.err.printf("Watch failed: %s%n", ex.getMessage());
+            return CommandLine.EXIT_FAILURE;
+        }
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Event handling and debouncing
+    
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path folder = (Path)key.watchable();
+                
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        continue;
+                    
+                    Path file = folder.resolve((Path)event.context());
+                    
+                    if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".bin"))
+                        schedule(file);
+                }
+                
+                key.reset();
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException ex) {
+            // Terminated
+        }
+        finally {
+            poller.shutdownNow();
+            workers.shutdown();
+        }
+    }
+    
+    private void schedule(Path file) {
+        // Further events for a file that is already being polled do not need another poll task
+        if (pending.putIfAbsent(file, new Pending(System.nanoTime())) == null)
+            poller.schedule(() -> poll(file), POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll(Path file) {
+        Pending state = pending.get(file);
+        long now = System.nanoTime();
+        long size;
+        
+        try {
+            size = Files.size(file);
+        }
+        catch (IOException ex) {
+            pending.remove(file); // deleted or moved away in the meantime
+            return;
+        }
+        
+        if (size != state.lastSize) {
+            state.lastSize = size;
+            state.stableSince = now;
+            poller.schedule(() -> poll(file), POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        
+        long stableMs = TimeUnit.NANOSECONDS.toMillis(now - state.stableSince);
+        
+        if (size != KinopioSaveData.TOTAL_FILE_SIZE && stableMs < SETTLE_TIMEOUT_MS) {
+            poller.schedule(() -> poll(file), POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        
+        pending.remove(file);
+        workers.execute(() -> process(file, state.detectedAt));
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Actions
+    
+    private void process(Path file, long detectedAt) {
+        try {
+            FileTime ownWrite = ownWrites.remove(file);
+            
+            if (ownWrite != null && ownWrite.equals(Files.getLastModifiedTime(file)))
+                return;
+            
+            KinopioSaveData saveData = new KinopioSaveData();
+            saveData.read(Files.readAllBytes(file));
+            List<String> done = new ArrayList<>();
+            
+            if (actions.contains(Action.VALIDATE))
+                done.add(String.format("valid %s", CommandLine.getVersionName(saveData.getGameVersion())));
+            
+            if (actions.contains(Action.MIGRATE) && saveData.getGameVersion() < KinopioSaveData.VERSION_SWITCH_VR) {
+                saveData.updateVersionToSwitchVR();
+                Files.write(file, saveData.toByteArray());
+                ownWrites.put(file, Files.getLastModifiedTime(file));
+                done.add("migrated");
+            }
+            
+            if (actions.contains(Action.INDEX)) {
+                appendIndex(file, saveData);
+                done.add("indexed");
+            }
+            
+            if (actions.contains(Action.ARCHIVE)) {
+                Path target = archive(file);
+                ownWrites.remove(file);
+                done.add(String.format("archived to %s", target));
+            }
+            
+            report(file, detectedAt, String.join(", ", done));
+        }
+        catch (NoSuchFileException ex) {
+            // Removed before it could be processed
+        }
+        catch (IOException | KinopioSaveException ex) {
+            report(file, detectedAt, String.format("failed: %s", ex.getMessage()));
+        }
+    }
+    
+    private static void appendIndex(Path file, KinopioSaveData saveData) throws IOException {
+        GameData gameData = saveData.getGameData();
+        String line = String.format("%s;%s;%s;%d;%d;%d;%d%n", LocalDateTime.now(), file.getFileName(),
+                CommandLine.getVersionName(saveData.getGameVersion()), gameData.playerLife, gameData.currentSeasonId,
+                CommandLine.countClearedCourses(saveData), saveData.getNumCourses());
+        Path index = file.resolveSibling(INDEX_FILE_NAME);
+        
+        synchronized (Watcher.class) {
+            Files.writeString(index, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+    
+    private static Path archive(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int extIdx = name.lastIndexOf('.');
+        String archiveName = String.format("%s-%s%s", name.substring(0, extIdx), LocalDateTime.now().format(ARCHIVE_TIMESTAMP),
+                name.substring(extIdx));
+        
+        Path archiveDir = Files.createDirectories(file.resolveSibling(ARCHIVE_DIR_NAME));
+        return Files.move(file, archiveDir.resolve(archiveName), StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static void report(Path file, long detectedAt, String message) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - detectedAt);
+        System.out.printf("%s: %s (%d ms)%n", file, message, latencyMs);
+    }
+}
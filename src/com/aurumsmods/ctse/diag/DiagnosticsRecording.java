@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.diag;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.EventSettings;
+import jdk.jfr.Recording;
+
+/**
+ * Starts and stops a flight recording that contains the JDK's default events and all {@link FlightEvents}. Stack traces
+ * for the latter are only recorded if the {@code ctse.jfr.stackTraces} system property is set to true.
+ * @author Aurum
+ */
+public final class DiagnosticsRecording {
+    private DiagnosticsRecording() { throw new IllegalStateException(); }
+    
+    private static Recording RECORDING;
+    
+    /**
+     * Starts recording to the specified file. The recording is written when it is stopped or when the JVM exits.
+     * @param destination the .jfr file to write.
+     * @throws IOException if the destination cannot be written.
+     * @throws ParseException if the JDK's default settings cannot be parsed.
+     */
+    public static synchronized void start(Path destination) throws IOException, ParseException {
+        if (RECORDING != null)
+            throw new IllegalStateException("Diagnostics recording already running!");
+        
+        boolean stackTraces = Boolean.getBoolean("ctse.jfr.stackTraces");
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        
+        for (Class<?> type : FlightEvents.getEventTypes()) {
+            EventSettings settings = recording.enable(type.asSubclass(Event.class));
+            
+            if (stackTraces)
+                settings.withStackTrace();
+        }
+        
+        recording.setName("CTSe");
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.start();
+        RECORDING = recording;
+    }
+    
+    /**
+     * Stops the current recording and writes it to its destination.
+     * @return the file that has been written.
+     */
+    public static synchronized Path stop() {
+        if (RECORDING == null)
+            throw new IllegalStateException("No diagnostics recording running!");
+        
+        Path destination = RECORDING.getDestination();
+        RECORDING.stop();
+        RECORDING.close();
+        RECORDING = null;
+        return destination;
+    }
+    
+    public static synchronized boolean isRecording() {
+        return RECORDING != null;
+    }
+}
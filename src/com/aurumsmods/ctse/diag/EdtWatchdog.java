@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.diag;
+
+import java.awt.EventQueue;
+
+/**
+ * Watches the Event Dispatch Thread for stalls. A background thread keeps a heartbeat posted to the event queue and checks
+ * how long it takes to be dispatched. If that exceeds the threshold, the stack of the EDT is logged once for this stall,
+ * which shows the code that blocks the UI. The delay of every heartbeat and the length of every stall are recorded into
+ * histograms.
+ * @author Aurum
+ */
+public final class EdtWatchdog {
+    private EdtWatchdog() { throw new IllegalStateException(); }
+    
+    private static final LatencyHistogram HEARTBEATS = new LatencyHistogram();
+    private static final LatencyHistogram STALLS = new LatencyHistogram();
+    private static Thread WATCHDOG;
+    
+    // Written on the EDT, read by the watchdog
+    private static volatile Thread EDT;
+    private static volatile long DISPATCHED_NANOS;
+    
+    /**
+     * Starts the watchdog if the {@code ctse.edtWatchdog} system property specifies a threshold in milliseconds.
+     */
+    public static void startIfEnabled() {
+        Long threshold = Long.getLong("ctse.edtWatchdog");
+        
+        if (threshold != null && threshold > 0L)
+            start(threshold);
+    }
+    
+    public static synchronized void start(long thresholdMillis) {
+        if (WATCHDOG != null)
+            throw new IllegalStateException("EDT watchdog already running!");
+        
+        WATCHDOG = new Thread(() -> watch(thresholdMillis * 1_000_000L), "CTSe EDT watchdog");
+        WATCHDOG.setDaemon(true);
+        WATCHDOG.start();
+    }
+    
+    public static synchronized boolean isRunning() {
+        return WATCHDOG != null;
+    }
+    
+    public static LatencyHistogram getHeartbeatHistogram() {
+        return HEARTBEATS;
+    }
+    
+    public static LatencyHistogram getStallHistogram() {
+        return STALLS;
+    }
+    
+    private static void watch(long thresholdNanos) {
+        long interval = Math.max(thresholdNanos / 4L / 1_000_000L, 10L);
+        
+        while (true) {
+            long posted = System.nanoTime();
+            DISPATCHED_NANOS = 0L;
+            EventQueue.invokeLater(() -> {
+                EDT = Thread.currentThread();
+                DISPATCHED_NANOS = System.nanoTime();
+            });
+            
+            // Wait for the heartbeat, reporting a stall once it takes too long
+            boolean stalled = false;
+            long dispatched;
+            
+            try {
+                while ((dispatched = DISPATCHED_NANOS) == 0L) {
+                    Thread.sleep(interval);
+                    
+                    if (!stalled && System.nanoTime() - posted > thresholdNanos) {
+                        stalled = true;
+                        logStall(System.nanoTime() - posted);
+                    }
+                }
+                
+                long delay = dispatched - posted;
+                HEARTBEATS.recordNanos(delay);
+                
+                if (stalled) {
+                    STALLS.recordNanos(delay);
+                    System.err.printf("EDT stall ended after %d ms%n", delay / 1_000_000L);
+                }
+                
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+    
+    private static void logStall(long nanos) {
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("EDT stalled for more than %d ms%n", nanos / 1_000_000L));
+        
+        Thread edt = EDT;
+        
+        if (edt != null) {
+            for (StackTraceElement element : edt.getStackTrace())
+                message.append("\tat ").append(element).append(System.lineSeparator());
+        }
+        
+        System.err.print(message);
+    }
+}
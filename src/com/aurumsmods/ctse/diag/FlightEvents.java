@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.diag;
+
+import com.aurumsmods.ctse.format.StageNode;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted across the load, edit and save lifecycle. Events are only created while a flight
+ * recorder exists, see {@link #isEnabled()}. Stack traces are disabled by default and have to be enabled through the
+ * recording settings.
+ * @author Aurum
+ */
+public final class FlightEvents {
+    private FlightEvents() { throw new IllegalStateException(); }
+    
+    /**
+     * Returns whether a flight recorder has been created, either by a recording started through the JVM options or
+     * {@link DiagnosticsRecording}, or by attaching jcmd. Loading the first event class sets up the recorder's
+     * instrumentation even if nothing is recorded, which takes a few hundred milliseconds, so callers only create events
+     * if this returns true.
+     * @return true if events may be recorded.
+     */
+    public static boolean isEnabled() {
+        return FlightRecorder.isInitialized();
+    }
+    
+    /**
+     * Returns all event types declared here. This loads the event classes.
+     * @return the event types.
+     */
+    public static Class<?>[] getEventTypes() {
+        return new Class<?>[] {
+            SaveRead.class, SectionDecode.class, Checksum.class, VersionMigration.class, SaveWrite.class, TreeGrow.class,
+            LocalizationSwitch.class, WidgetReload.class
+        };
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Timing helpers
+    //
+    // Every begin method returns null if no flight recorder exists and every commit method ignores null, so call sites need
+    // one line each. The events are never passed as Event, because the verifier would load their classes to check that.
+    
+    public static SaveRead beginSaveRead() {
+        if (!isEnabled())
+            return null;
+        
+        SaveRead event = new SaveRead();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(SaveRead event, String file, int version, int bytes) {
+        if (event != null && event.shouldCommit()) {
+            event.file = file;
+            event.version = version;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    public static SectionDecode beginSectionDecode() {
+        if (!isEnabled())
+            return null;
+        
+        SectionDecode event = new SectionDecode();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(SectionDecode event, String section, int count) {
+        if (event != null && event.shouldCommit()) {
+            event.section = section;
+            event.count = count;
+            event.commit();
+        }
+    }
+    
+    public static Checksum beginChecksum() {
+        if (!isEnabled())
+            return null;
+        
+        Checksum event = new Checksum();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(Checksum event, int bytes) {
+        if (event != null && event.shouldCommit()) {
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    public static VersionMigration beginVersionMigration() {
+        if (!isEnabled())
+            return null;
+        
+        VersionMigration event = new VersionMigration();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(VersionMigration event, int oldVersion, int newVersion) {
+        if (event != null && event.shouldCommit()) {
+            event.oldVersion = oldVersion;
+            event.newVersion = newVersion;
+            event.commit();
+        }
+    }
+    
+    public static SaveWrite beginSaveWrite() {
+        if (!isEnabled())
+            return null;
+        
+        SaveWrite event = new SaveWrite();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(SaveWrite event, String file, int version, int bytes) {
+        if (event != null && event.shouldCommit()) {
+            event.file = file;
+            event.version = version;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    public static TreeGrow beginTreeGrow() {
+        if (!isEnabled())
+            return null;
+        
+        TreeGrow event = new TreeGrow();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(TreeGrow event, int version, int visibleNodes) {
+        if (event != null && event.shouldCommit()) {
+            event.version = version;
+            event.visibleNodes = visibleNodes;
+            event.commit();
+        }
+    }
+    
+    public static LocalizationSwitch beginLocalizationSwitch() {
+        if (!isEnabled())
+            return null;
+        
+        LocalizationSwitch event = new LocalizationSwitch();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(LocalizationSwitch event, String localization, boolean cached) {
+        if (event != null && event.shouldCommit()) {
+            event.localization = localization;
+            event.cached = cached;
+            event.commit();
+        }
+    }
+    
+    public static WidgetReload beginWidgetReload() {
+        if (!isEnabled())
+            return null;
+        
+        WidgetReload event = new WidgetReload();
+        event.begin();
+        return event;
+    }
+    
+    public static void commit(WidgetReload event, String widget, StageNode node) {
+        if (event != null && event.shouldCommit()) {
+            event.widget = widget;
+            event.stage = node != null ? node.getStageName() : null;
+            event.commit();
+        }
+    }
+    
+    @Name("com.aurumsmods.ctse.SaveRead")
+    @Label("Save Read")
+    @Description("Reading and decoding a save file")
+    @Category({ "CTSe", "Save Data" })
+    @StackTrace(false)
+    public static final class SaveRead extends Event {
+        @Label("File")
+        public String file;
+        
+        @Label("Detected Version")
+        public int version;
+        
+        @Label("Size")
+        @DataAmount
+        public int bytes;
+    }
+    
+    @Name("com.aurumsmods.ctse.SectionDecode")
+    @Label("Section Decode")
+    @Description("Decoding a block of sections from a save file")
+    @Category({ "CTSe", "Save Data" })
+    @StackTrace(false)
+    public static final class SectionDecode extends Event {
+        @Label("Section")
+        public String section;
+        
+        @Label("Count")
+        public int count;
+    }
+    
+    @Name("com.aurumsmods.ctse.Checksum")
+    @Label("Checksum")
+    @Description("Calculating the CRC32 checksum of a save file")
+    @Category({ "CTSe", "Save Data" })
+    @StackTrace(false)
+    public static final class Checksum extends Event {
+        @Label("Size")
+        @DataAmount
+        public int bytes;
+    }
+    
+    @Name("com.aurumsmods.ctse.VersionMigration")
+    @Label("Version Migration")
+    @Description("Updating save data to the latest game version")
+    @Category({ "CTSe", "Save Data" })
+    @StackTrace(false)
+    public static final class VersionMigration extends Event {
+        @Label("Old Version")
+        public int oldVersion;
+        
+        @Label("New Version")
+        public int newVersion;
+    }
+    
+    @Name("com.aurumsmods.ctse.SaveWrite")
+    @Label("Save Write")
+    @Description("Encoding and writing a save file")
+    @Category({ "CTSe", "Save Data" })
+    @StackTrace(false)
+    public static final class SaveWrite extends Event {
+        @Label("File")
+        public String file;
+        
+        @Label("Version")
+        public int version;
+        
+        @Label("Size")
+        @DataAmount
+        public int bytes;
+    }
+    
+    @Name("com.aurumsmods.ctse.TreeGrow")
+    @Label("Stage Tree Build")
+    @Description("Building the stage tree of a game version")
+    @Category({ "CTSe", "Editor" })
+    @StackTrace(false)
+    public static final class TreeGrow extends Event {
+        @Label("Version")
+        public int version;
+        
+        @Label("Visible Nodes")
+        public int visibleNodes;
+    }
+    
+    @Name("com.aurumsmods.ctse.LocalizationSwitch")
+    @Label("Localization Switch")
+    @Description("Loading and selecting a localization")
+    @Category({ "CTSe", "Editor" })
+    @StackTrace(false)
+    public static final class LocalizationSwitch extends Event {
+        @Label("Localization")
+        public String localization;
+        
+        @Label("Cached")
+        @Description("Whether the localization was already loaded")
+        public boolean cached;
+    }
+    
+    @Name("com.aurumsmods.ctse.WidgetReload")
+    @Label("Widget Reload")
+    @Description("Reloading an editor widget from the save data")
+    @Category({ "CTSe", "Editor" })
+    @StackTrace(false)
+    public static final class WidgetReload extends Event {
+        @Label("Widget")
+        public String widget;
+        
+        @Label("Stage")
+        public String stage;
+    }
+}
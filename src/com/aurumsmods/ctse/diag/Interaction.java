@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.diag;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.event.InputEvent;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User actions in the editor whose latency is tracked. A measurement spans from the start of the action until the event
+ * queue has dispatched everything the action posted, which includes the resulting repaints.
+ * @author Aurum
+ */
+public enum Interaction {
+    TREE_SELECTION("Tree selection"),
+    TAB_SWITCH("Tab switch"),
+    OPEN_FILE("Open file"),
+    SAVE_FILE("Save file"),
+    LANGUAGE_CHANGE("Language change");
+    
+    private final String label;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    
+    private Interaction(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+    
+    /**
+     * Records the latency of an action that started at the given time once all events queued so far have been dispatched.
+     * Must be called on the Event Dispatch Thread.
+     * @param startNanos the {@link System#nanoTime()} at which the action started.
+     */
+    public void endWhenIdle(long startNanos) {
+        EventQueue.invokeLater(() -> histogram.recordNanos(System.nanoTime() - startNanos));
+    }
+    
+    /**
+     * Records the latency of an action that was triggered by the input event currently being dispatched, starting at the
+     * time of that event. This includes the time the event waited in the queue before any listener ran. If no input event
+     * is being dispatched, the measurement starts now. Must be called on the Event Dispatch Thread.
+     */
+    public void endWhenIdleSinceInput() {
+        AWTEvent event = EventQueue.getCurrentEvent();
+        long startNanos = System.nanoTime();
+        
+        // Input events carry a wall clock time in milliseconds
+        if (event instanceof InputEvent) {
+            long queuedMillis = System.currentTimeMillis() - ((InputEvent)event).getWhen();
+            startNanos -= TimeUnit.MILLISECONDS.toNanos(Math.max(queuedMillis, 0L));
+        }
+        
+        endWhenIdle(startNanos);
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Report
+    
+    /**
+     * Formats the latency percentiles of all interactions and, if the watchdog is running, of the Event Dispatch Thread.
+     * @return a plain text table in milliseconds.
+     */
+    public static String formatReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-24s %7s %9s %9s %9s %9s %9s%n", "Action (ms)", "count", "mean", "p50", "p90", "p99", "max"));
+        
+        for (Interaction interaction : values())
+            appendRow(report, interaction.label, interaction.histogram);
+        
+        if (EdtWatchdog.isRunning()) {
+            report.append(System.lineSeparator());
+            appendRow(report, "EDT heartbeat delay", EdtWatchdog.getHeartbeatHistogram());
+            appendRow(report, "EDT stalls", EdtWatchdog.getStallHistogram());
+        }
+        else
+            report.append(String.format("%nEDT watchdog is disabled, start with -Dctse.edtWatchdog=<threshold ms> to enable it.%n"));
+        
+        return report.toString();
+    }
+    
+    private static void appendRow(StringBuilder report, String label, LatencyHistogram histogram) {
+        report.append(String.format("%-24s %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", label, histogram.getCount(),
+            histogram.getMeanMicros() / 1000.0,
+            histogram.getPercentileMicros(50.0) / 1000.0,
+            histogram.getPercentileMicros(90.0) / 1000.0,
+            histogram.getPercentileMicros(99.0) / 1000.0,
+            histogram.getMaxMicros() / 1000.0
+        ));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.diag;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear latency histogram in the style of HdrHistogram. Latencies are recorded in microseconds. Values below 16 µs
+ * are counted exactly, larger values fall into one of 16 linear sub-buckets per power of two, which keeps the relative
+ * error of any reported percentile below 6.25%. Recording never allocates.
+ * @author Aurum
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // about 12.7 days, anything longer is clamped
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    
+    private final long[] counts = new long[(MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long totalCount, totalMicros, maxMicros;
+    
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS)
+            return (int)micros;
+        
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int)(micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    public synchronized void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000L, 0L), MAX_VALUE);
+        counts[indexOf(micros)]++;
+        totalCount++;
+        totalMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+    
+    public synchronized void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = totalMicros = maxMicros = 0L;
+    }
+    
+    public synchronized long getCount() {
+        return totalCount;
+    }
+    
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+    
+    public synchronized double getMeanMicros() {
+        return totalCount > 0 ? (double)totalMicros / totalCount : 0.0;
+    }
+    
+    /**
+     * Returns the highest value that is equivalent to the value at the given percentile.
+     * @param percentile a percentile between 0 and 100.
+     * @return the latency in microseconds or 0 if nothing has been recorded.
+     */
+    public synchronized long getPercentileMicros(double percentile) {
+        if (totalCount == 0)
+            return 0L;
+        
+        long rank = Math.max(1L, (long)Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0L;
+        
+        for (int i = 0 ; i < counts.length ; i++) {
+            seen += counts[i];
+            
+            if (seen >= rank)
+                return Math.min(highestValueAt(i), maxMicros);
+        }
+        
+        return maxMicros;
+    }
+}
@@ -21,9 +21,11 @@ import com.aurumsmods.ctse.format.StageNode;
 import com.aurumsmods.ajul.BitUtil;
 import com.aurumsmods.ctse.CTSe;
 import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.diag.FlightEvents;
 import com.aurumsmods.ctse.format.CourseInfo;
 import com.aurumsmods.ctse.format.GameData;
 import java.util.Date;
+import java.util.concurrent.Future;
 import javax.swing.ImageIcon;
 
 /**
@@ -31,23 +33,21 @@ import javax.swing.ImageIcon;
  * @author Aurum
  */
 final class CourseInfoWidget extends javax.swing.JPanel {
-    private static final ImageIcon[] ICONS_COLLECT_ITEMS = {
-        CTSe.ASSET_LOADER.readIcon("/assets/img/collect_item_unselected.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/collect_item_selected.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/collect_item_selected_aoc.png")
-    };
+    private static final ImageIcon[] ICONS_COLLECT_ITEMS = IconRegistry.getCollectItemIcons();
     
     // -------------------------------------------------------------------------------------------------------------------------
     
-    private final KinopioSaveEditor editor;  // parent editor context
+    private final EditorContext editor;      // parent editor context
     CourseInfo courseInfo;                   // currently edited CourseInfo
     boolean blockInput;                      // blocks user input when necessary
+    private Future<?> pendingPreview;        // preview that is being read for the selected stage, if any
+    Runnable previewListener;                // notified once the selected stage's preview is shown, if set
 
     /**
      * Constructs a new CourseInfoWidget using the specified editor context.
      * @param context the save editor context.
      */
-    public CourseInfoWidget(KinopioSaveEditor context) {
+    public CourseInfoWidget(EditorContext context) {
         initComponents();
         
         editor = context;
@@ -59,9 +59,10 @@ final class CourseInfoWidget extends javax.swing.JPanel {
      * Reloads all information from the GameData. This should be invoked by the save editor after loading a save file.
      */
     void reloadData() {
+        FlightEvents.WidgetReload event = FlightEvents.beginWidgetReload();
         blockInput = true;
             
-        if (courseInfo != null && editor.selectedNode != null) {
+        if (courseInfo != null && editor.getSelectedNode() != null) {
             // Page flags
             chkOpen.setSelected(BitUtil.testWithMask(courseInfo.flags, CourseInfo.FLAG_OPEN));
             chkClear.setSelected(BitUtil.testWithMask(courseInfo.flags, CourseInfo.FLAG_CLEAR));
@@ -90,22 +91,43 @@ final class CourseInfoWidget extends javax.swing.JPanel {
             reloadUI();
             blockInput = false;
         }
+        
+        FlightEvents.commit(event, "CourseInfo", editor.getSelectedNode());
+    }
+    
+    private void notifyPreviewShown() {
+        if (previewListener != null)
+            previewListener.run();
     }
     
     private void reloadUI() {
-        StageNode node = editor.selectedNode;
+        StageNode node = editor.getSelectedNode();
         boolean hasHeadCollectibles = false;
         boolean hasHeadMisc = false;
         
-        // Update preview image
+        // Update preview image. Previews that are not cached are read in the background, until then a placeholder of the
+        // same size is shown. The placeholder also stays if the preview could not be read.
+        if (pendingPreview != null) {
+            pendingPreview.cancel(false);
+            pendingPreview = null;
+        }
+        
         if (node.hasPreviewImage()) {
-            String stageName = node.getStageName();
-
-            // VR stages reuse the preview images of their original level counterparts
-            if (node.isVRUseOriginalPreview())
-                stageName = stageName.substring(2); // Cuts off "VR"
-
-            lblPreviewImage.setIcon(CTSe.ASSET_LOADER.readIcon(String.format("/assets/img/stages/%s.png", stageName)));
+            ImageIcon preview = StagePreviews.getCachedPreview(node);
+            lblPreviewImage.setIcon(preview != null ? preview : StagePreviews.PLACEHOLDER);
+            
+            if (preview == null) {
+                pendingPreview = StagePreviews.loadPreview(node, (icon) -> {
+                    if (editor.getSelectedNode() == node && icon != null) {
+                        lblPreviewImage.setIcon(icon);
+                        notifyPreviewShown();
+                    }
+                });
+            }
+            else
+                notifyPreviewShown();
+            
+            StagePreviews.prefetchNeighbors(node, editor.getSaveData().getGameVersion());
             lblPreviewImage.setVisible(true);
             sep1.setVisible(true);
         }
@@ -179,12 +201,10 @@ final class CourseInfoWidget extends javax.swing.JPanel {
     
     private void localizeBadgeConditions() {
         Localization localization = Localization.getLocalization();
-        StageNode node = editor.selectedNode;
+        StageNode node = editor.getSelectedNode();
         
-        if (node != null) {
-            String stageName = node.getStageName();
-            chkBadgeCondition0.setText(localization.getText(String.format("stage.badgeCondition0.%s", stageName)));
-        }
+        if (node != null)
+            chkBadgeCondition0.setText(localization.getText(node.getBadgeConditionTextId()));
     }
     
     /**
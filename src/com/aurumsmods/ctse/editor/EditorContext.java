@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.StageNode;
+
+/**
+ * The state that editor widgets need from their parent editor. Keeping this apart from the editor frame allows the
+ * widgets to be driven without a window, for example in headless benchmarks.
+ * @author Aurum
+ */
+interface EditorContext {
+    /**
+     * Returns the save data that is being edited.
+     * @return the edited save data.
+     */
+    KinopioSaveData getSaveData();
+    
+    /**
+     * Returns the stage node that is selected in the tree, if any.
+     * @return the selected stage node or null.
+     */
+    StageNode getSelectedNode();
+    
+    /**
+     * Notifies the editor that the save data has been changed by the user.
+     */
+    void needSaveChanges();
+}
@@ -19,6 +19,7 @@ package com.aurumsmods.ctse.editor;
 import com.aurumsmods.ajul.BitUtil;
 import com.aurumsmods.ctse.LocalizeString;
 import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.diag.FlightEvents;
 import com.aurumsmods.ctse.format.GameData;
 import java.util.Date;
 import javax.swing.JCheckBox;
@@ -29,7 +30,7 @@ import javax.swing.JSpinner.DateEditor;
  * @author Aurum
  */
 class GameDataWidget extends javax.swing.JPanel {
-    private final KinopioSaveEditor editor; // parent editor context
+    private final EditorContext editor;     // parent editor context
     GameData gameData;                      // currently edited GameData
     boolean blockInput;                     // blocks user input when necessary
 
@@ -37,7 +38,7 @@ class GameDataWidget extends javax.swing.JPanel {
      * Constructs a new GameDataWidget using the specified editor context.
      * @param context the save editor context.
      */
-    GameDataWidget(KinopioSaveEditor editor) {
+    GameDataWidget(EditorContext editor) {
         initComponents();
         
         this.editor = editor;
@@ -56,8 +57,9 @@ class GameDataWidget extends javax.swing.JPanel {
      * Reloads all information from the GameData. This should be invoked by the save editor after loading a save file.
      */
     void reloadData() {
+        FlightEvents.WidgetReload event = FlightEvents.beginWidgetReload();
         blockInput = true;
-        gameData = editor.saveData.getGameData();
+        gameData = editor.getSaveData().getGameData();
         
         if (gameData != null) {
             spnLastPlayTime.setValue(new Date(gameData.lastPlayTime * 1000));
@@ -106,6 +108,8 @@ class GameDataWidget extends javax.swing.JPanel {
             
             blockInput = false;
         }
+        
+        FlightEvents.commit(event, "GameData", null);
     }
     
     /**
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.CTSe;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import javax.swing.ImageIcon;
+
+/**
+ * The editor's static icons. During startup, all of them are decoded concurrently by {@link #preload(Executor)} while the
+ * other startup phases run. The editor classes take their icons from here when they are initialized and only wait for
+ * icons that are still being decoded. Icons that have not been preloaded are decoded on the calling thread.
+ * @author Aurum
+ */
+public final class IconRegistry {
+    private IconRegistry() { throw new IllegalStateException(); }
+    
+    private static final String PROGRAM_ICON = "/assets/icon.png";
+    
+    private static final String[] NODE_ICONS = { // [StageNode icon ID]
+        "/assets/img/node_default.png",
+        "/assets/img/node_season.png",
+        "/assets/img/node_chapter.png",
+        "/assets/img/node_star.png",
+        "/assets/img/node_shine.png",
+        "/assets/img/node_crown.png",
+        "/assets/img/node_toad_brigade.png",
+        "/assets/img/node_ghost_player.png",
+        "/assets/img/node_ghost_player_maze.png",
+        "/assets/img/node_bonus.png"
+    };
+    
+    private static final String[] COLLECT_ITEM_ICONS = {
+        "/assets/img/collect_item_unselected.png",
+        "/assets/img/collect_item_selected.png",
+        "/assets/img/collect_item_selected_aoc.png"
+    };
+    
+    private static final Map<String, CompletableFuture<BufferedImage>> IMAGES = new ConcurrentHashMap<>();
+    
+    /**
+     * Starts decoding all icons, each one as a separate task on the given executor.
+     * @param executor the executor that decodes the icons.
+     * @return a future that completes once all icons are decoded.
+     */
+    public static CompletableFuture<Void> preload(Executor executor) {
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>(1 + NODE_ICONS.length + COLLECT_ITEM_ICONS.length);
+        images.add(preload(PROGRAM_ICON, executor));
+        
+        for (String path : NODE_ICONS)
+            images.add(preload(path, executor));
+        for (String path : COLLECT_ITEM_ICONS)
+            images.add(preload(path, executor));
+        
+        return CompletableFuture.allOf(images.toArray(new CompletableFuture[images.size()]));
+    }
+    
+    private static CompletableFuture<BufferedImage> preload(String path, Executor executor) {
+        return IMAGES.computeIfAbsent(path, (p) -> CompletableFuture.supplyAsync(() -> CTSe.ASSET_LOADER.readImage(p), executor));
+    }
+    
+    private static BufferedImage getImage(String path) {
+        CompletableFuture<BufferedImage> image = IMAGES.get(path);
+        return image != null ? image.join() : CTSe.ASSET_LOADER.readImage(path);
+    }
+    
+    public static BufferedImage getProgramIcon() {
+        return getImage(PROGRAM_ICON);
+    }
+    
+    /**
+     * Returns the icons of the stage tree's nodes, see {@link ScaledImage}.
+     * @return the icons, indexed by the nodes' icon IDs.
+     */
+    static ImageIcon[] getNodeIcons() {
+        ImageIcon[] icons = new ImageIcon[NODE_ICONS.length];
+        
+        for (int i = 0 ; i < icons.length ; i++)
+            icons[i] = ScaledImage.createIcon(getImage(NODE_ICONS[i]));
+        
+        return icons;
+    }
+    
+    /**
+     * Returns the icons of the collectible check boxes.
+     * @return the unselected, selected and selected DLC collectible icons.
+     */
+    static ImageIcon[] getCollectItemIcons() {
+        ImageIcon[] icons = new ImageIcon[COLLECT_ITEM_ICONS.length];
+        
+        for (int i = 0 ; i < icons.length ; i++)
+            icons[i] = new ImageIcon(getImage(COLLECT_ITEM_ICONS[i]));
+        
+        return icons;
+    }
+}
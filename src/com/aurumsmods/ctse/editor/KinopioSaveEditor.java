@@ -20,12 +20,16 @@ import com.aurumsmods.ctse.format.StageNode;
 import com.aurumsmods.ajul.SwingUtil;
 import com.aurumsmods.ctse.CTSe;
 import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.diag.DiagnosticsRecording;
+import com.aurumsmods.ctse.diag.Interaction;
 import com.aurumsmods.ctse.format.KinopioSaveData;
 import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.StageTreeViewModel;
 import java.awt.Component;
+import java.awt.Font;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.text.ParseException;
 import java.util.Map.Entry;
 import java.util.prefs.Preferences;
 import javax.swing.ImageIcon;
@@ -33,30 +37,18 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButtonMenuItem;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTree;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.tree.DefaultTreeCellRenderer;
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.TreeNode;
-import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 /**
  * @author Aurum
  */
-public class KinopioSaveEditor extends javax.swing.JFrame {
-    private static final ImageIcon[] NODE_ICONS = {
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_default.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_season.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_chapter.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_star.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_shine.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_crown.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_toad_brigade.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_ghost_player.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_ghost_player_maze.png"),
-        CTSe.ASSET_LOADER.readIcon("/assets/img/node_bonus.png")
-    };
+public class KinopioSaveEditor extends javax.swing.JFrame implements EditorContext {
+    private static final ImageIcon[] NODE_ICONS = IconRegistry.getNodeIcons();
     
     static final class StageNodeTreeRenderer extends DefaultTreeCellRenderer {
         StageNodeTreeRenderer() {
@@ -125,7 +117,18 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
     // -------------------------------------------------------------------------------------------------------------------------
     // General-purpose helpers
     
-    void needSaveChanges() {
+    @Override
+    public KinopioSaveData getSaveData() {
+        return saveData;
+    }
+    
+    @Override
+    public StageNode getSelectedNode() {
+        return selectedNode;
+    }
+    
+    @Override
+    public void needSaveChanges() {
         saveChanges = true;
     }
     
@@ -157,14 +160,14 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
     
     private void changeLocalization(String langid) {
         if (!Localization.getLocalizationId().equals(langid)) {
+            long start = System.nanoTime();
             Localization.setLocalization(langid);
             localizeAll();
             
-            // Preserve selected tree path
-            TreePath path = treeStageNodes.getSelectionPath();
-            ((DefaultTreeModel)treeStageNodes.getModel()).reload();
-            expandTree(StageNode.getRootNode());
-            treeStageNodes.setSelectionPath(path);
+            // Only the labels change, expansion and selection stay as they are
+            ((StageTreeViewModel)treeStageNodes.getModel()).relabel();
+            
+            Interaction.LANGUAGE_CHANGE.endWhenIdle(start);
         }
     }
     
@@ -179,6 +182,8 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         mnuLanguage.setText(localization.getText("editor.menu.language"));
         mnuHelp.setText(localization.getText("editor.menu.help"));
         mniAbout.setText(localization.getText("editor.menu.help.about"));
+        mniDiagnostics.setText(localization.getText("editor.menu.help.diagnostics"));
+        localizeRecordingMenuItem();
         
         tabMain.setTitleAt(0, localization.getText("editor.scrSeasonAndCourse.title"));
         tabMain.setTitleAt(1, localization.getText("editor.scrGameData.title"));
@@ -192,27 +197,22 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
     // StageNode handling
     
     private void reloadTree() {
-        StageNode.growTree(saveData.getGameVersion());
+        // Only the stages that differ between the old and the new game version are removed and inserted
+        ((StageTreeViewModel)treeStageNodes.getModel()).setModel(StageNode.getTreeModel(saveData.getGameVersion()));
         clearSelectionAndExpandTree();
     }
     
-    private void expandTree(StageNode node) {
-        for (TreeNode n : Collections.list(node.children()))
-            expandTree((StageNode)n);
-        
-        if (node.isRoot())
-            return;
-        
-        treeStageNodes.expandPath(new TreePath(node.getPath()));
+    static void expandTree(JTree tree) {
+        ((StageTreeViewModel)tree.getModel()).expandAll(tree);
     }
     
     private void clearSelectionAndExpandTree() {
         treeStageNodes.setSelectionPath(null);
-        ((DefaultTreeModel)treeStageNodes.getModel()).reload();
-        expandTree(StageNode.getRootNode());
+        expandTree(treeStageNodes);
     }
     
     private void handleChangedSelectedStageNode() {
+        long start = System.nanoTime();
         selectedNode = (StageNode)treeStageNodes.getLastSelectedPathComponent();
         
         if (currentWidget != null)
@@ -241,6 +241,7 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         }
         
         scrSeasonAndCourse.repaint();
+        Interaction.TREE_SELECTION.endWhenIdle(start);
     }
     
     // -------------------------------------------------------------------------------------------------------------------------
@@ -277,6 +278,8 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
     }
     
     private void loadSaveDataFile() {
+        long start = System.nanoTime();
+        
         try {
             saveData.read(saveFile);
         }
@@ -287,15 +290,20 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         
         if (saveFile != null) {
             if (saveData.getGameVersion() < KinopioSaveData.VERSION_SWITCH_VR) {
+                long dialogStart = System.nanoTime();
                 int result = showConfirmDialog(JOptionPane.YES_NO_OPTION, "editor.message.outdated_saveformat");
                 
                 if (result == JOptionPane.YES_OPTION) {
                     saveData.updateVersionToSwitchVR();
                     showMessageDialog(JOptionPane.INFORMATION_MESSAGE, "editor.message.updated_saveformat");
                 }
+                
+                // Time spent in dialogs is not part of the action's latency
+                start = System.nanoTime() - (dialogStart - start);
             }
             
             reloadData();
+            Interaction.OPEN_FILE.endWhenIdle(start);
         }
     }
     
@@ -313,9 +321,12 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
     
     private void writeSaveDataFile() {
         if (saveFile != null) {
+            long start = System.nanoTime();
+            
             try {
                 saveData.write(saveFile);
                 saveChanges = false;
+                Interaction.SAVE_FILE.endWhenIdle(start);
             }
             catch (IOException ex) {
                 SwingUtil.showExceptionBox(this, ex, CTSe.TITLE);
@@ -329,6 +340,47 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         return true;
     }
     
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Diagnostics recording
+    
+    private void localizeRecordingMenuItem() {
+        String key = DiagnosticsRecording.isRecording() ? "editor.menu.help.stop_recording" : "editor.menu.help.start_recording";
+        mniRecording.setText(Localization.getLocalization().getText(key));
+    }
+    
+    private void toggleDiagnosticsRecording() {
+        if (DiagnosticsRecording.isRecording()) {
+            DiagnosticsRecording.stop();
+        }
+        else {
+            final JFileChooser fc = new JFileChooser();
+            fc.setDialogTitle(Localization.getLocalization().getText("editor.file_chooser.recording"));
+            fc.setFileFilter(new FileNameExtensionFilter("Flight Recording (*.jfr)", "jfr"));
+            fc.setSelectedFile(new File("ctse.jfr"));
+            
+            if (fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    DiagnosticsRecording.start(fc.getSelectedFile().toPath());
+                }
+                catch (IOException | ParseException ex) {
+                    SwingUtil.showExceptionBox(this, ex, CTSe.TITLE);
+                }
+            }
+        }
+        
+        localizeRecordingMenuItem();
+    }
+    
+    private void showDiagnostics() {
+        JTextArea report = new JTextArea(Interaction.formatReport() + System.lineSeparator() + Localization.formatCacheReport()
+            + System.lineSeparator() + StagePreviews.formatCacheReport());
+        report.setEditable(false);
+        report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        
+        String title = Localization.getLocalization().getText("editor.diagnostics.title");
+        JOptionPane.showMessageDialog(this, new JScrollPane(report), title, JOptionPane.PLAIN_MESSAGE);
+    }
+    
     // -------------------------------------------------------------------------------------------------------------------------
 
     /**
@@ -356,10 +408,12 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         mnuLanguage = new javax.swing.JMenu();
         mnuHelp = new javax.swing.JMenu();
         mniAbout = new javax.swing.JMenuItem();
+        mniRecording = new javax.swing.JMenuItem();
+        mniDiagnostics = new javax.swing.JMenuItem();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
         setTitle(CTSe.FULL_TITLE);
-        setIconImage(CTSe.PROGRAM_ICON);
+        setIconImage(IconRegistry.getProgramIcon());
         setResizable(false);
         addWindowListener(new java.awt.event.WindowAdapter() {
             public void windowClosing(java.awt.event.WindowEvent evt) {
@@ -367,9 +421,15 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
             }
         });
 
+        tabMain.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                tabMainStateChanged(evt);
+            }
+        });
+
         splitSeasonAndCourse.setDividerLocation(300);
 
-        treeStageNodes.setModel(new DefaultTreeModel(StageNode.getRootNode()));
+        treeStageNodes.setModel(new StageTreeViewModel(StageNode.getTreeModel(KinopioSaveData.VERSION_SWITCH_VR)));
         treeStageNodes.setCellRenderer(new StageNodeTreeRenderer());
         treeStageNodes.setRootVisible(false);
         treeStageNodes.setRowHeight(24);
@@ -456,6 +516,24 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         });
         mnuHelp.add(mniAbout);
 
+        mniRecording.setMnemonic('R');
+        mniRecording.setText("Start diagnostics recording");
+        mniRecording.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                mniRecordingActionPerformed(evt);
+            }
+        });
+        mnuHelp.add(mniRecording);
+
+        mniDiagnostics.setMnemonic('D');
+        mniDiagnostics.setText("Diagnostics");
+        mniDiagnostics.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                mniDiagnosticsActionPerformed(evt);
+            }
+        });
+        mnuHelp.add(mniDiagnostics);
+
         jMenuBar1.add(mnuHelp);
 
         setJMenuBar(jMenuBar1);
@@ -506,6 +584,14 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         showMessageDialog(JOptionPane.INFORMATION_MESSAGE, CTSe.FULL_TITLE);
     }//GEN-LAST:event_mniAboutActionPerformed
 
+    private void mniRecordingActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_mniRecordingActionPerformed
+        toggleDiagnosticsRecording();
+    }//GEN-LAST:event_mniRecordingActionPerformed
+
+    private void mniDiagnosticsActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_mniDiagnosticsActionPerformed
+        showDiagnostics();
+    }//GEN-LAST:event_mniDiagnosticsActionPerformed
+
     private void treeStageNodesValueChanged(javax.swing.event.TreeSelectionEvent evt) {//GEN-FIRST:event_treeStageNodesValueChanged
         handleChangedSelectedStageNode();
     }//GEN-LAST:event_treeStageNodesValueChanged
@@ -514,12 +600,20 @@ public class KinopioSaveEditor extends javax.swing.JFrame {
         CTSe.saveSettings();
     }//GEN-LAST:event_formWindowClosing
 
+    private void tabMainStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_tabMainStateChanged
+        // Adding the first tab in initComponents selects it, which is not a switch
+        if (tabMain.isShowing())
+            Interaction.TAB_SWITCH.endWhenIdleSinceInput();
+    }//GEN-LAST:event_tabMainStateChanged
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenuBar jMenuBar1;
     private javax.swing.JMenuItem mniAbout;
+    private javax.swing.JMenuItem mniDiagnostics;
     private javax.swing.JMenuItem mniExit;
     private javax.swing.JMenuItem mniNew;
     private javax.swing.JMenuItem mniOpen;
+    private javax.swing.JMenuItem mniRecording;
     private javax.swing.JMenuItem mniSave;
     private javax.swing.JMenuItem mniSaveAs;
     private javax.swing.JMenu mnuFile;
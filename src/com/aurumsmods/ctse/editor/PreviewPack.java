@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.CTSe;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The stage previews as decoded pixel data, packed by PreviewPacker in the buildtools folder. The pack is extracted from
+ * the program's resources into a cache folder once and then mapped into memory, so that reading a preview only copies
+ * its pixels into an image. If the cache folder cannot be written, the pack is read into memory instead. See
+ * PreviewPacker for the file format and the filter that the resource is stored with.
+ * @author Aurum
+ */
+final class PreviewPack {
+    private static final String RESOURCE = "/assets/img/stages.pack";
+    private static final int MAGIC = 0x43545350; // "CTSP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 0x10;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final int FILTER_DISTANCE = 3;
+    
+    private final ByteBuffer data;
+    private final Map<String, Integer> entries; // name -> index entry position
+    
+    private PreviewPack(ByteBuffer data, Map<String, Integer> entries) {
+        this.data = data;
+        this.entries = entries;
+    }
+    
+    /**
+     * Returns the folder that the pack is extracted to. It can be changed through the {@code ctse.cacheDir} system
+     * property.
+     * @return the cache folder.
+     */
+    static Path getCacheDirectory() {
+        String dir = System.getProperty("ctse.cacheDir");
+        
+        if (dir != null)
+            return Path.of(dir);
+        
+        return Path.of(System.getProperty("java.io.tmpdir"), String.format("ctse-%s", System.getProperty("user.name")));
+    }
+    
+    /**
+     * Maps the pack into memory, extracting it into the cache folder first if necessary.
+     * @return the pack or null if the program does not contain a pack or it could not be read.
+     */
+    static PreviewPack open() {
+        byte[] header;
+        
+        try (InputStream in = openResource()) {
+            if (in == null)
+                return null;
+            
+            header = in.readNBytes(HEADER_SIZE);
+        }
+        catch (IOException ex) {
+            System.err.printf("Could not read the preview pack: %s%n", ex.getMessage());
+            return null;
+        }
+        
+        if (header.length != HEADER_SIZE)
+            return null;
+        
+        // Files of other builds have a different checksum and therefore a different name
+        Path file = getCacheDirectory().resolve(String.format("previews-%08x.pack", ByteBuffer.wrap(header).getInt(8)));
+        
+        try {
+            if (Files.exists(file)) {
+                PreviewPack pack = load(map(file), header);
+                
+                if (pack != null)
+                    return pack;
+                
+                System.err.printf("%s is damaged, extracting it again%n", file);
+            }
+            
+            extract(file);
+            PreviewPack pack = load(map(file), header);
+            
+            if (pack == null)
+                System.err.printf("%s is damaged%n", file);
+            
+            return pack;
+        }
+        catch (IOException ex) {
+            System.err.printf("Could not extract the preview pack to %s: %s, reading it into memory instead%n", file,
+                    ex.getMessage());
+        }
+        
+        try (InputStream in = openResource()) {
+            return load(ByteBuffer.wrap(in.readAllBytes()), header);
+        }
+        catch (IOException ex) {
+            System.err.printf("Could not read the preview pack: %s%n", ex.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Opens the pack resource, undoing the filter it is stored with.
+     * @return the stream or null if the program does not contain a pack.
+     */
+    private static InputStream openResource() {
+        InputStream in = CTSe.ASSET_LOADER.openStream(RESOURCE);
+        return in != null ? new UnfilterInputStream(in) : null;
+    }
+    
+    private static void extract(Path file) throws IOException {
+        Path dir = file.getParent();
+        Files.createDirectories(dir);
+        
+        // Packs of other builds are no longer needed. Those that other instances still map cannot be deleted on Windows,
+        // they are left for a later start.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "previews-*.pack")) {
+            for (Path old : stream) {
+                try {
+                    Files.deleteIfExists(old);
+                }
+                catch (IOException ex) {
+                    System.err.printf("Could not delete %s: %s%n", old, ex.getMessage());
+                }
+            }
+        }
+        
+        // Another instance may be mapping the file while it is extracted, so it only appears once it is complete
+        Path temp = Files.createTempFile(dir, "previews", ".tmp");
+        
+        try {
+            try (InputStream in = openResource()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static ByteBuffer map(Path file) throws IOException {
+        // The mapping stays valid after the channel has been closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("File too large.");
+            
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    private static PreviewPack load(ByteBuffer data, byte[] header) {
+        if (data.capacity() < HEADER_SIZE || !data.slice(0, HEADER_SIZE).equals(ByteBuffer.wrap(header)) || data.getInt(0) != MAGIC
+                || data.getShort(4) != FORMAT_VERSION)
+            return null;
+        
+        // Validate the index once, so that reading a preview cannot fail later on
+        int count = data.getInt(12);
+        int size = data.capacity();
+        
+        if (count < 0 || count > (size - HEADER_SIZE) / INDEX_ENTRY_SIZE)
+            return null;
+        
+        Map<String, Integer> entries = new HashMap<>(count * 2);
+        
+        for (int i = 0 ; i < count ; i++) {
+            int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            int nameOffset = data.getInt(entry);
+            int nameLength = data.getShort(entry + 4) & 0xFFFF;
+            long pixelSize = 3L * (data.getShort(entry + 6) & 0xFFFF) * (data.getShort(entry + 8) & 0xFFFF);
+            int pixelOffset = data.getInt(entry + 12);
+            
+            if (nameOffset < 0 || nameOffset + nameLength > size || pixelOffset < 0 || pixelOffset + pixelSize > size)
+                return null;
+            
+            byte[] name = new byte[nameLength];
+            data.get(nameOffset, name);
+            entries.put(new String(name, StandardCharsets.US_ASCII), entry);
+        }
+        
+        return new PreviewPack(data, entries);
+    }
+    
+    /**
+     * Returns a preview image from the pack.
+     * @param name the image's name, without the ".png" extension.
+     * @return the image or null if the pack does not contain it.
+     */
+    BufferedImage read(String name) {
+        Integer entry = entries.get(name);
+        
+        if (entry == null)
+            return null;
+        
+        int width = data.getShort(entry + 6) & 0xFFFF;
+        int height = data.getShort(entry + 8) & 0xFFFF;
+        byte[] pixels = new byte[width * height * 3];
+        data.get(data.getInt(entry + 12), pixels);
+        
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        return image;
+    }
+    
+    /**
+     * Undoes PreviewPacker's filter while reading, each byte is added to the byte {@value #FILTER_DISTANCE} positions
+     * before it.
+     */
+    private static final class UnfilterInputStream extends InputStream {
+        private final InputStream in;
+        private final byte[] history = new byte[FILTER_DISTANCE]; // the last bytes read, zero at the start
+        private int slot = 0;
+        
+        UnfilterInputStream(InputStream in) {
+            this.in = in;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            return b >= 0 ? unfilter((byte)b) & 0xFF : b;
+        }
+        
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int count = in.read(buf, off, len);
+            
+            for (int i = 0 ; i < count ; i++)
+                buf[off + i] = unfilter(buf[off + i]);
+            
+            return count;
+        }
+        
+        private byte unfilter(byte b) {
+            byte value = (byte)(b + history[slot]);
+            history[slot] = value;
+            slot = slot + 1 < FILTER_DISTANCE ? slot + 1 : 0;
+            return value;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
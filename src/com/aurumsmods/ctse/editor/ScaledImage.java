@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import javax.swing.ImageIcon;
+
+/**
+ * An image whose scaled variants are created the first time a display scale asks for them and kept afterwards. Java 2D
+ * asks a multi-resolution image for the variant that matches the device pixels it is drawn to, so on scaled displays
+ * the kept variant is copied as it is instead of resampling the image on every paint.
+ * @author Aurum
+ */
+final class ScaledImage extends BaseMultiResolutionImage {
+    private static final int MAX_VARIANTS = 4;    // per image, further sizes are scaled while drawing
+    private static final double MAX_SCALE = 4.0;
+    
+    private final BufferedImage base;
+    private final Map<Long, BufferedImage> variants = new ConcurrentHashMap<>(); // (width << 32 | height) -> variant
+    private final LongConsumer variantListener; // may be null
+    
+    ScaledImage(BufferedImage base) {
+        this(base, null);
+    }
+    
+    /**
+     * Creates an image that reports the size of every variant it creates, so that caches can account for them.
+     * @param base the image at its original size.
+     * @param variantListener receives the estimated size in bytes of each new variant, on the thread that created it.
+     */
+    ScaledImage(BufferedImage base, LongConsumer variantListener) {
+        super(base);
+        this.base = base;
+        this.variantListener = variantListener;
+    }
+    
+    /**
+     * Creates an icon that shows the given image through a {@link ScaledImage}.
+     * @param image the image at its original size.
+     * @return the icon.
+     */
+    static ImageIcon createIcon(BufferedImage image) {
+        return new ImageIcon(new ScaledImage(image));
+    }
+    
+    @Override
+    public Image getResolutionVariant(double destImageWidth, double destImageHeight) {
+        int width = (int)Math.ceil(destImageWidth);
+        int height = (int)Math.ceil(destImageHeight);
+        
+        if (width == base.getWidth() && height == base.getHeight() || width <= 0 || height <= 0
+                || width > base.getWidth() * MAX_SCALE || height > base.getHeight() * MAX_SCALE)
+            return base;
+        
+        long key = (long)width << 32 | height;
+        BufferedImage variant = variants.get(key);
+        
+        if (variant == null) {
+            if (variants.size() >= MAX_VARIANTS)
+                return base;
+            
+            BufferedImage created = scale(width, height);
+            variant = variants.putIfAbsent(key, created);
+            
+            if (variant == null) {
+                variant = created;
+                
+                if (variantListener != null)
+                    variantListener.accept(estimateSize(created));
+            }
+        }
+        
+        return variant;
+    }
+    
+    /**
+     * Estimates the memory taken by the pixel data of the image and of all variants created so far.
+     * @return the estimated size in bytes.
+     */
+    long estimateSize() {
+        long size = estimateSize(base);
+        
+        for (BufferedImage variant : variants.values())
+            size += estimateSize(variant);
+        
+        return size;
+    }
+    
+    private static long estimateSize(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long)data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+    }
+    
+    @Override
+    public List<Image> getResolutionVariants() {
+        List<Image> list = new ArrayList<>(variants.size() + 1);
+        list.add(base);
+        list.addAll(variants.values());
+        return list;
+    }
+    
+    private BufferedImage scale(int width, int height) {
+        boolean opaque = base.getTransparency() == Transparency.OPAQUE;
+        BufferedImage variant = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = variant.createGraphics();
+        
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(base, 0, 0, width, height, null);
+        }
+        finally {
+            g.dispose();
+        }
+        
+        return variant;
+    }
+}
@@ -18,6 +18,7 @@ package com.aurumsmods.ctse.editor;
 
 import com.aurumsmods.ctse.LocalizeString;
 import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.diag.FlightEvents;
 import com.aurumsmods.ctse.format.SeasonData;
 import com.aurumsmods.ctse.format.StageNode;
 import java.util.ArrayList;
@@ -29,7 +30,7 @@ import javax.swing.SpinnerNumberModel;
  * @author Aurum
  */
 final class SeasonDataWidget extends javax.swing.JPanel {
-    private final KinopioSaveEditor editor;    // parent editor context
+    private final EditorContext editor;        // parent editor context
     private final List<StageNode> actualPages; // actual selectable pages
     private final List<StageNode> bonusPages;  // pages that can hold a bonus level
     SeasonData seasonData;                     // currently edited SeasonData
@@ -39,7 +40,7 @@ final class SeasonDataWidget extends javax.swing.JPanel {
      * Constructs a new SeasonDataWidget using the specified editor context.
      * @param context the save editor context.
      */
-    public SeasonDataWidget(KinopioSaveEditor context) {
+    public SeasonDataWidget(EditorContext context) {
         initComponents();
         
         editor = context;
@@ -61,11 +62,12 @@ final class SeasonDataWidget extends javax.swing.JPanel {
      * Reloads all information from the SeasonData. This should be invoked be the save editor after selecting a season node.
      */
     void reloadData() {
+        FlightEvents.WidgetReload event = FlightEvents.beginWidgetReload();
         blockInput = true;
         
         if (seasonData != null) {
             // Collect valid course pages for the current season -> update selection box
-            StageNode.collectSeasonActualPages(actualPages, editor.saveData.getGameVersion(), seasonData.seasonId);
+            StageNode.collectSeasonActualPages(actualPages, editor.getSaveData().getGameVersion(), seasonData.seasonId);
             cmoLastPlayCourseId.removeAllItems();
             for (StageNode node : actualPages)
                 cmoLastPlayCourseId.addItem(node);
@@ -96,7 +98,7 @@ final class SeasonDataWidget extends javax.swing.JPanel {
 
                 // Collect valid bonus pages for the current season -> update selection box
                 cmoBonusCoursePageId.removeAllItems();
-                StageNode.collectSeasonValidBonusPages(bonusPages, editor.saveData.getGameVersion(), seasonData.seasonId);
+                StageNode.collectSeasonValidBonusPages(bonusPages, editor.getSaveData().getGameVersion(), seasonData.seasonId);
                 for (StageNode node : bonusPages)
                     cmoBonusCoursePageId.addItem(node);
 
@@ -127,6 +129,8 @@ final class SeasonDataWidget extends javax.swing.JPanel {
             
             blockInput = false;
         }
+        
+        FlightEvents.commit(event, "SeasonData", editor.getSelectedNode());
     }
     
     /**
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.format.StageNode;
+import com.aurumsmods.ctse.format.StageTreeModel;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+/**
+ * Decoded stage preview images. Previews are read from the {@link PreviewPack}, the program does not contain the PNGs
+ * they were packed from. If the pack is missing or damaged, stages are shown without previews. Recently shown previews
+ * are kept in a least-recently-used cache, so selecting a stage again does not read its preview again. The cache is
+ * limited by the size of the decoded pixel data, which can be set in KB through the {@code ctse.previewCacheKB} system
+ * property, including the variants for scaled displays, see {@link ScaledImage}.
+ * <p>
+ * The editor reads previews on a background thread, so that selecting a stage never waits for its preview. The
+ * previews of the selected stage's neighbors are read ahead of time as well.
+ * @author Aurum
+ */
+final class StagePreviews {
+    private StagePreviews() { throw new IllegalStateException(); }
+    
+    private static final int PREVIEW_WIDTH = 182;
+    private static final int PREVIEW_HEIGHT = 151;
+    
+    /**
+     * The image that is shown while a preview is read, a grey area of the same size as the previews.
+     */
+    static final ImageIcon PLACEHOLDER = createPlaceholder();
+    
+    private static final long CAPACITY = Long.getLong("ctse.previewCacheKB", 4096L) * 1024L;
+    private static final Map<String, Preview> CACHE = new LinkedHashMap<>(16, 0.75f, true); // guarded by itself
+    private static long SIZE, HITS, MISSES, EVICTIONS; // guarded by CACHE
+    
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor((Runnable task) -> {
+        Thread thread = new Thread(task, "CTSe preview loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final List<Future<?>> PREFETCHES = new ArrayList<>(); // only used on the event dispatch thread
+    
+    private static final class PackHolder {
+        static final PreviewPack PACK = PreviewPack.open();
+    }
+    
+    private static final class Preview {
+        final ScaledImage image;
+        final ImageIcon icon;
+        
+        Preview(String name, BufferedImage image) {
+            this.image = new ScaledImage(image, (variantSize) -> addVariant(name, this, variantSize));
+            icon = new ImageIcon(this.image);
+        }
+    }
+    
+    private static ImageIcon createPlaceholder() {
+        BufferedImage image = new BufferedImage(PREVIEW_WIDTH, PREVIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.GRAY);
+        g.fillRect(0, 0, PREVIEW_WIDTH, PREVIEW_HEIGHT);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(0, 0, PREVIEW_WIDTH - 1, PREVIEW_HEIGHT - 1);
+        g.dispose();
+        return new ImageIcon(image);
+    }
+    
+    /**
+     * Returns the name of the image that is shown for a stage. VR stages reuse the previews of their original levels.
+     * @param node the stage node.
+     * @return the image name or null if the stage has no preview.
+     */
+    static String getPreviewName(StageNode node) {
+        if (!node.hasPreviewImage())
+            return null;
+        
+        String stageName = node.getStageName();
+        return node.isVRUseOriginalPreview() ? stageName.substring(2) : stageName; // Cuts off "VR"
+    }
+    
+    /**
+     * Returns the preview image of a stage if it is cached.
+     * @param node the stage node.
+     * @return the preview image or null if the stage has no preview or it has not been read yet.
+     */
+    static ImageIcon getCachedPreview(StageNode node) {
+        String name = getPreviewName(node);
+        
+        if (name == null)
+            return null;
+        
+        synchronized (CACHE) {
+            Preview preview = CACHE.get(name);
+            
+            if (preview == null)
+                return null;
+            
+            HITS++;
+            return preview.icon;
+        }
+    }
+    
+    /**
+     * Reads the preview image of a stage on the loader thread and passes it to the consumer on the event dispatch thread.
+     * The consumer receives null if the preview could not be read. If the returned future is cancelled before reading
+     * has started, the preview is not read and the consumer is not called.
+     * @param node the stage node.
+     * @param consumer the consumer of the preview image.
+     * @return the future of the preview image.
+     */
+    static Future<?> loadPreview(StageNode node, Consumer<ImageIcon> consumer) {
+        CompletableFuture<ImageIcon> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return getPreview(node);
+            }
+            catch (RuntimeException ex) {
+                System.err.printf("Could not read the preview of %s: %s%n", node.getStageName(), ex);
+                return null;
+            }
+        }, LOADER);
+        
+        future.thenAcceptAsync(consumer, SwingUtilities::invokeLater);
+        return future;
+    }
+    
+    /**
+     * Reads the previews of the stages next to the given one on the loader thread, so that they are cached once the user
+     * moves on to them. Prefetches for earlier stages that have not started yet are cancelled. This has to be called on
+     * the event dispatch thread.
+     * @param node the stage node.
+     * @param version the game version whose stage tree is shown.
+     */
+    static void prefetchNeighbors(StageNode node, int version) {
+        for (Future<?> prefetch : PREFETCHES)
+            prefetch.cancel(false);
+        
+        PREFETCHES.clear();
+        
+        StageTreeModel model = StageNode.getTreeModel(version);
+        StageNode parent = node.getParent();
+        int index = model.getIndexOfChild(parent, node);
+        
+        if (index >= 0) {
+            prefetch((StageNode)model.getChild(parent, index + 1));
+            prefetch((StageNode)model.getChild(parent, index - 1));
+        }
+    }
+    
+    private static void prefetch(StageNode node) {
+        String name = node != null ? getPreviewName(node) : null;
+        
+        if (name == null)
+            return;
+        
+        synchronized (CACHE) {
+            if (CACHE.containsKey(name))
+                return;
+        }
+        
+        PREFETCHES.add(LOADER.submit(() -> getPreview(node)));
+    }
+    
+    /**
+     * Returns the preview image of a stage, reading it if it is not cached.
+     * @param node the stage node.
+     * @return the preview image or null if the stage has no preview or it could not be read.
+     */
+    static ImageIcon getPreview(StageNode node) {
+        String name = getPreviewName(node);
+        
+        if (name == null)
+            return null;
+        
+        synchronized (CACHE) {
+            Preview preview = CACHE.get(name);
+            
+            if (preview != null) {
+                HITS++;
+                return preview.icon;
+            }
+            
+            MISSES++;
+        }
+        
+        // Reading may take a few milliseconds, so it is done without holding the lock
+        BufferedImage image = readImage(name);
+        
+        if (image == null)
+            return null;
+        Preview preview = new Preview(name, image);
+        
+        synchronized (CACHE) {
+            Preview cached = CACHE.putIfAbsent(name, preview);
+            
+            if (cached != null)
+                return cached.icon;
+            
+            SIZE += preview.image.estimateSize();
+            evict();
+        }
+        
+        return preview.icon;
+    }
+    
+    private static BufferedImage readImage(String name) {
+        PreviewPack pack = PackHolder.PACK;
+        return pack != null ? pack.read(name) : null;
+    }
+    
+    /**
+     * Accounts for a scaled variant that was created while painting a preview, which may push the cache over its capacity.
+     * Previews that were evicted before are not counted anymore.
+     */
+    private static void addVariant(String name, Preview preview, long variantSize) {
+        synchronized (CACHE) {
+            if (CACHE.get(name) != preview)
+                return;
+            
+            SIZE += variantSize;
+            evict();
+        }
+    }
+    
+    private static void evict() {
+        // The most recently used preview is always kept, even if it exceeds the capacity on its own
+        Iterator<Preview> iterator = CACHE.values().iterator();
+        
+        while (SIZE > CAPACITY && CACHE.size() > 1) {
+            SIZE -= iterator.next().image.estimateSize();
+            iterator.remove();
+            EVICTIONS++;
+        }
+    }
+    
+    static String formatCacheReport() {
+        synchronized (CACHE) {
+            return String.format("Preview cache: %d images, %.1f of %.1f KB, %d hits, %d misses, %d evictions%n",
+                CACHE.size(), SIZE / 1024.0, CAPACITY / 1024.0, HITS, MISSES, EVICTIONS);
+        }
+    }
+}
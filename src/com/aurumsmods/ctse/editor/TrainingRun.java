@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.editor;
+
+import com.aurumsmods.ctse.Localization;
+import com.aurumsmods.ctse.format.KinopioSaveData;
+import com.aurumsmods.ctse.format.KinopioSaveException;
+import com.aurumsmods.ctse.format.StageNode;
+import com.aurumsmods.ctse.format.StageTreeModel;
+import com.aurumsmods.ctse.format.StageTreeViewModel;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import javax.swing.JComponent;
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+
+/**
+ * Exercises the editor's typical paths once so that a class-data sharing archive can be dumped at exit. An empty save is
+ * opened with the stage tree of every game version, every stage node is selected and painted, the save is migrated and
+ * encoded, and every localization is applied once. The widgets are driven without an editor window, so this also works with
+ * {@code java.awt.headless=true}. If a display is available, the editor window is created as well, but never shown.
+ * <p>
+ * Requires the stage nodes and localizations to be initialized.
+ * @author Aurum
+ */
+public final class TrainingRun implements EditorContext {
+    private TrainingRun() {}
+    
+    private final KinopioSaveData saveData = new KinopioSaveData();
+    private final BufferedImage canvas = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+    private StageNode selectedNode;
+    
+    @Override
+    public KinopioSaveData getSaveData() {
+        return saveData;
+    }
+    
+    @Override
+    public StageNode getSelectedNode() {
+        return selectedNode;
+    }
+    
+    @Override
+    public void needSaveChanges() {
+    }
+    
+    public static void run() throws InterruptedException, InvocationTargetException {
+        TrainingRun training = new TrainingRun();
+        
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                training.runOnEdt();
+            }
+            catch (KinopioSaveException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+    
+    private void runOnEdt() throws KinopioSaveException {
+        if (!GraphicsEnvironment.isHeadless())
+            new KinopioSaveEditor().dispose();
+        
+        GameDataWidget gameDataWidget = new GameDataWidget(this);
+        CourseInfoWidget courseInfoWidget = new CourseInfoWidget(this);
+        SeasonDataWidget seasonDataWidget = new SeasonDataWidget(this);
+        StageTreeViewModel view = new StageTreeViewModel(StageNode.getTreeModel(KinopioSaveData.VERSION_SWITCH_VR));
+        JTree tree = new JTree(view);
+        tree.setRootVisible(false);
+        tree.setCellRenderer(new KinopioSaveEditor.StageNodeTreeRenderer());
+        
+        // The archive only holds classes, so an empty save exercises the same code as a real one of every version
+        byte[] sample = saveData.toByteArray();
+        
+        for (int version = KinopioSaveData.VERSION_WII_U ; version <= KinopioSaveData.VERSION_SWITCH_VR ; version++) {
+            saveData.read(sample);
+            gameDataWidget.reloadData();
+            paint(gameDataWidget);
+            
+            StageTreeModel model = StageNode.getTreeModel(version);
+            view.setModel(model);
+            KinopioSaveEditor.expandTree(tree);
+            
+            // Select and show every node once
+            for (StageNode node : model.getVisibleNodes()) {
+                selectedNode = node;
+                tree.setSelectionPath(model.getPath(node));
+                
+                if (selectedNode.getCourseId() != -1) {
+                    courseInfoWidget.courseInfo = saveData.getCourseInfo(selectedNode.getCourseId());
+                    courseInfoWidget.reloadData();
+                    paint(courseInfoWidget);
+                }
+                else if (selectedNode.isSeason()) {
+                    seasonDataWidget.seasonData = saveData.getSeasonData(selectedNode.getSeasonId() - 1);
+                    seasonDataWidget.reloadData();
+                    paint(seasonDataWidget);
+                }
+            }
+            
+            paint(tree);
+            saveData.updateVersionToSwitchVR();
+            saveData.toByteArray();
+        }
+        
+        // Apply every localization once, then restore the current one
+        String current = Localization.getLocalizationId();
+        
+        for (String id : Localization.getLocalizations().keySet()) {
+            Localization.setLocalization(id);
+            gameDataWidget.localizeAll();
+            courseInfoWidget.localizeAll();
+            seasonDataWidget.localizeAll();
+            view.relabel();
+            paint(tree);
+        }
+        
+        Localization.setLocalization(current);
+    }
+    
+    private void paint(JComponent component) {
+        component.setSize(component.getPreferredSize());
+        component.validate();
+        
+        Graphics2D g = canvas.createGraphics();
+        component.paint(g);
+        g.dispose();
+    }
+}
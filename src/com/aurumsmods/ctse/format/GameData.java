@@ -23,8 +23,8 @@ import java.nio.ByteBuffer;
  * @author Aurum
  */
 public final class GameData {
-    static final int SIZE = 520;             // Total section size (Switch Version 1.0.0 or newer)
-    static final int OLD_SIZE = 544;         // Total section size (Wii U or 3DS Version)
+    public static final int SIZE = 520;      // Total section size (Switch Version 1.0.0 or newer)
+    public static final int OLD_SIZE = 544;  // Total section size (Wii U or 3DS Version)
     static final int PADDING_SIZE = 475;     // Padding data size (Switch Version 1.0.0 or newer)
     static final int OLD_PADDING_SIZE = 499; // Padding data size (Wii U or 3DS Version)
     
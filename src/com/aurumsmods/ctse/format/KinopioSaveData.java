@@ -17,6 +17,7 @@
 package com.aurumsmods.ctse.format;
 
 import com.aurumsmods.ctse.CTSe;
+import com.aurumsmods.ctse.diag.FlightEvents;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -34,8 +35,8 @@ public final class KinopioSaveData {
     // -------------------------------------------------------------------------------------------------------------------------
     // File format constants
     
-    static final int TOTAL_FILE_SIZE = 0x800C;
-    static final int GAME_IDENTIFIER = 7;
+    public static final int TOTAL_FILE_SIZE = 0x800C;
+    public static final int GAME_IDENTIFIER = 7;
     
     // Seasond and courses per game version
     static final int[] SEASONS_PER_VERSION = { 5, 5, 5, 5, 6 };
@@ -52,7 +53,6 @@ public final class KinopioSaveData {
     // KinopioSaveData implementation
     
     private final ByteBuffer buffer;
-    private final CRC32 crc32;
     private int gameVersion;
     private final GameData gameData;
     private final List<SeasonData> seasonData;
@@ -61,7 +61,6 @@ public final class KinopioSaveData {
     public KinopioSaveData() {
         buffer = ByteBuffer.wrap(new byte[TOTAL_FILE_SIZE]);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
-        crc32 = new CRC32();
         gameVersion = VERSION_SWITCH_VR;
         gameData = new GameData(this);
         seasonData = new ArrayList(6);
@@ -97,6 +96,8 @@ public final class KinopioSaveData {
     // Save data reading and writing
     
     public void read(File file) throws IOException, KinopioSaveException {
+        FlightEvents.SaveRead event = FlightEvents.beginSaveRead();
+        
         // Load data into buffer
         try(FileInputStream in = new FileInputStream(file)) {
             if (in.available() != TOTAL_FILE_SIZE)
@@ -104,6 +105,22 @@ public final class KinopioSaveData {
             in.read(buffer.array());
         }
         
+        decode();
+        FlightEvents.commit(event, file.getPath(), gameVersion, TOTAL_FILE_SIZE);
+    }
+    
+    public void read(byte[] data) throws KinopioSaveException {
+        FlightEvents.SaveRead event = FlightEvents.beginSaveRead();
+        
+        if (data.length != TOTAL_FILE_SIZE)
+            throw new KinopioSaveException("Invalid file size. Expected 32780 bytes.");
+        
+        System.arraycopy(data, 0, buffer.array(), 0, TOTAL_FILE_SIZE);
+        decode();
+        FlightEvents.commit(event, null, gameVersion, TOTAL_FILE_SIZE);
+    }
+    
+    private void decode() throws KinopioSaveException {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.position(0);
         
@@ -128,13 +145,20 @@ public final class KinopioSaveData {
                 throw new KinopioSaveException("File does not seem to contain Captain Toad Treasure Tracker save data.");
         }
         
+        // The data was reinitialized for the previous version, so the block size has to follow the new one
+        gameData.isUseOldSize = gameVersion < VERSION_SWITCH;
+        
         // A lot of the other information is not of any use for us, so we just skip to the start of the game data block
+        FlightEvents.SectionDecode event = FlightEvents.beginSectionDecode();
         buffer.position(0x1C);
         gameData.read(buffer);
+        FlightEvents.commit(event, "GameData", 1);
         
         // Read season data
+        event = FlightEvents.beginSectionDecode();
         for (int i = 0 ; i < SEASONS_PER_VERSION[gameVersion] ; i++)
             seasonData.get(i).read(buffer);
+        FlightEvents.commit(event, "SeasonData", SEASONS_PER_VERSION[gameVersion]);
         
         // Read course info
         int numCourses = buffer.getInt();
@@ -142,14 +166,26 @@ public final class KinopioSaveData {
         if (numCourses - courseInfos.size() > 0)
             throw new KinopioSaveException("File seems to contain more course infos than the game could handle.");
         
+        event = FlightEvents.beginSectionDecode();
         for (int i = 0 ; i < numCourses ; i++)
             courseInfos.get(i).read(buffer);
+        FlightEvents.commit(event, "CourseInfo", numCourses);
         
         // Initialize DLC lock if necessary
         handleInitAOCLock();
     }
     
     public void write(File file) throws IOException {
+        FlightEvents.SaveWrite event = FlightEvents.beginSaveWrite();
+        Files.write(file.toPath(), encode());
+        FlightEvents.commit(event, file.getPath(), gameVersion, TOTAL_FILE_SIZE);
+    }
+    
+    public byte[] toByteArray() {
+        return encode().clone();
+    }
+    
+    private byte[] encode() {
         int revision;
         
         switch(gameVersion) {
@@ -198,12 +234,9 @@ public final class KinopioSaveData {
         CTSe.fillPadding(buffer, buffer.remaining());
         
         // Calculate and write CRC32 checksum
-        crc32.reset();
-        crc32.update(buffer.array(), 4, TOTAL_FILE_SIZE - 4);
-        buffer.putInt(0x00, (int)crc32.getValue());
+        buffer.putInt(0x00, calculateChecksum(buffer.array()));
         
-        // Write file data
-        Files.write(file.toPath(), buffer.array());
+        return buffer.array();
     }
     
     // -------------------------------------------------------------------------------------------------------------------------
@@ -225,9 +258,39 @@ public final class KinopioSaveData {
         return gameVersion;
     }
     
+    public int getNumSeasons() {
+        return getNumSeasons(gameVersion);
+    }
+    
+    public int getNumCourses() {
+        return getNumCourses(gameVersion);
+    }
+    
+    public static int getNumSeasons(int version) {
+        return SEASONS_PER_VERSION[version];
+    }
+    
+    public static int getNumCourses(int version) {
+        return COURSES_PER_VERSION[version];
+    }
+    
     // -------------------------------------------------------------------------------------------------------------------------
     // Helper functions for saving and updating
     
+    /**
+     * Calculates the CRC32 checksum of a save file, which covers everything but the checksum field itself.
+     * @param data the save file contents.
+     * @return the checksum.
+     */
+    public static int calculateChecksum(byte[] data) {
+        FlightEvents.Checksum event = FlightEvents.beginChecksum();
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 4, TOTAL_FILE_SIZE - 4);
+        FlightEvents.commit(event, TOTAL_FILE_SIZE - 4);
+        
+        return (int)crc32.getValue();
+    }
+    
     private int calculateSaveDataSize() {
         int numSeasons = SEASONS_PER_VERSION[gameVersion];
         int numStages = COURSES_PER_VERSION[gameVersion];
@@ -243,6 +306,7 @@ public final class KinopioSaveData {
     }
     
     public void updateVersionToSwitchVR() {
+        FlightEvents.VersionMigration event = FlightEvents.beginVersionMigration();
         int oldVersion = gameVersion;
         gameVersion = VERSION_SWITCH_VR;
         
@@ -269,6 +333,8 @@ public final class KinopioSaveData {
                 // This is the latest version
                 break;
         }
+        
+        FlightEvents.commit(event, oldVersion, gameVersion);
     }
     
     private void handleInitOdysseyChapter() {
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.format;
+
+/**
+ * Read-only access to the stage metadata without creating any objects. Every node is a single {@code long} taken from
+ * the table that is generated from StageNodeInfo.csv, and the static accessors below return the same values as the
+ * corresponding {@link StageNode} getters. This is meant for headless tools that join the metadata against large numbers
+ * of {@link CourseInfo} records. Nothing has to be initialized before use.
+ * @author Aurum
+ */
+public final class PackedStageNodes {
+    private PackedStageNodes() { throw new IllegalStateException(); }
+    
+    /**
+     * Returned by lookups that found no node. No actual node packs to zero since its depth is always at least one.
+     */
+    public static final long NONE = 0L;
+    
+    public static final int FLAG_HAS_DOT_KINOPIO            = 0b000001;
+    public static final int FLAG_HAS_DLC_COLLECT_ITEM       = 0b000010;
+    public static final int FLAG_HAS_BADGE_CONDITION        = 0b000100;
+    public static final int FLAG_HAS_CHALLENGE_TIME         = 0b001000;
+    public static final int FLAG_IS_VR_USE_ORIGINAL_PREVIEW = 0b010000;
+    public static final int FLAG_HAS_PREVIEW_IMAGE          = 0b100000;
+    
+    private static final int NUM_VERSIONS = KinopioSaveData.VERSION_SWITCH_VR + 1;
+    private static final int NUM_DATA_IDS = 256; // data IDs are stored as unsigned bytes
+    private static final long[][] COURSE_NODES = createCourseIndex(); // [version][courseId]
+    
+    private static long[][] createCourseIndex() {
+        long[][] index = new long[NUM_VERSIONS][NUM_DATA_IDS];
+        
+        for (int ver = 0 ; ver < NUM_VERSIONS ; ver++) {
+            for (long node : StageNodeTable.NODES) {
+                int courseId = getCourseId(node);
+                
+                if (courseId >= 0 && index[ver][courseId] == NONE && isSupportedBy(node, ver))
+                    index[ver][courseId] = node;
+            }
+        }
+        
+        return index;
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Lookup
+    
+    public static int count() {
+        return StageNodeTable.NODES.length;
+    }
+    
+    /**
+     * Returns a packed node in StageNodeInfo.csv's order.
+     * @param index the node's index, the same as {@link StageNode#getTableIndex()}.
+     * @return the packed node.
+     */
+    public static long get(int index) {
+        return StageNodeTable.NODES[index];
+    }
+    
+    /**
+     * Looks up the node that holds a course's information in the given game version.
+     * @param version the game version.
+     * @param courseId the course ID.
+     * @return the packed node or {@link #NONE} if there is none.
+     */
+    public static long getCourseNode(int version, int courseId) {
+        if (courseId < 0 || courseId >= NUM_DATA_IDS)
+            return NONE;
+        return COURSE_NODES[version][courseId];
+    }
+    
+    public static boolean isSupportedBy(long node, int version) {
+        return checkVersionThreshold(getVersionThreshold(node), version);
+    }
+    
+    static boolean checkVersionThreshold(int threshold, int version) {
+        switch(threshold) {
+            case 0: return true;
+            case 1: return version == KinopioSaveData.VERSION_WII_U;
+            case 2: return version >= KinopioSaveData.VERSION_SWITCH;
+            case 3: return version >= KinopioSaveData.VERSION_SWITCH_AOC;
+            case 4: return version == KinopioSaveData.VERSION_SWITCH_AOC;
+            case 5: return version == KinopioSaveData.VERSION_SWITCH_VR;
+        }
+        
+        return false;
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Accessors
+    
+    public static String getStageName(long node) {
+        return StageNodeTable.NAMES[StageNodeTable.getNameIndex(node)];
+    }
+    
+    public static int getCourseId(long node) {
+        int type = getStageType(node);
+        return type != StageNode.TYPE_SEASON && type != StageNode.TYPE_NOT_A_STAGE ? StageNodeTable.getDataId(node) : -1;
+    }
+    
+    public static int getSeasonId(long node) {
+        return getStageType(node) == StageNode.TYPE_SEASON ? StageNodeTable.getDataId(node) : -1;
+    }
+    
+    public static int getPageId(long node) {
+        return StageNodeTable.getPageId(node);
+    }
+    
+    public static int getStageType(long node) {
+        return StageNodeTable.getStageType(node);
+    }
+    
+    public static int getDepth(long node) {
+        return StageNodeTable.getDepth(node);
+    }
+    
+    public static int getIconId(long node) {
+        return StageNodeTable.getIconId(node);
+    }
+    
+    public static int getVersionThreshold(long node) {
+        return StageNodeTable.getVersion(node);
+    }
+    
+    public static int getCollectItemNum(long node) {
+        return StageNodeTable.getCollectItemNum(node);
+    }
+    
+    public static int getFlags(long node) {
+        return StageNodeTable.getFlags(node);
+    }
+    
+    public static int getChallengeTime(long node) {
+        return StageNodeTable.getChallengeTime(node);
+    }
+    
+    public static boolean hasDlcCollectItem(long node) {
+        return (getFlags(node) & FLAG_HAS_DLC_COLLECT_ITEM) != 0;
+    }
+    
+    public static boolean hasBadgeCondition(long node) {
+        return (getFlags(node) & FLAG_HAS_BADGE_CONDITION) != 0;
+    }
+    
+    public static boolean hasChallengeTime(long node) {
+        return (getFlags(node) & FLAG_HAS_CHALLENGE_TIME) != 0;
+    }
+}
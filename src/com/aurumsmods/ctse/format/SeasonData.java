@@ -23,7 +23,7 @@ import java.nio.ByteBuffer;
  * @author Aurum
  */
 public final class SeasonData {
-    static final int SIZE = 60;
+    public static final int SIZE = 60;
     static final int PADDING_SIZE = 36;
     
     // -------------------------------------------------------------------------------------------------------------------------
@@ -16,80 +16,58 @@
  */
 package com.aurumsmods.ctse.format;
 
-import com.aurumsmods.ctse.CTSe;
 import com.aurumsmods.ctse.Localization;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Predicate;
-import javax.swing.tree.DefaultMutableTreeNode;
 
 /**
  * @author Aurum
  */
-public class StageNode extends DefaultMutableTreeNode {
+public class StageNode {
     // -------------------------------------------------------------------------------------------------------------------------
     // StageNode root singleton and node parser
     
     private static final StageNode ROOT_NODE = new StageNode();
     private static StageNode[] STAGE_NODES;
+    private static StageTreeModel[] TREE_MODELS;
+    
+    public static boolean isInitialized() {
+        return STAGE_NODES != null;
+    }
     
     public static void init() {
         if (STAGE_NODES != null)
             throw new IllegalStateException("StageNodes already initialized!");
         
-        byte[] raw = CTSe.ASSET_LOADER.readBinary("/assets/bin/StageNodeInfo.bin");
-        
-        // Fatal case, cannot proceed code execution of the entire program without proper node data
-        if (raw == null) {
-            System.err.println("Fatal! StageNodeInfo.bin could not be loaded!");
-            System.exit(-1);
-        }
-        
-        // Create and prepare buffer
-        ByteBuffer buf = ByteBuffer.wrap(raw);
-        buf.order(ByteOrder.LITTLE_ENDIAN);
-        
-        // Read header
-        int numNodes = buf.getInt();
-        int numStrings = buf.getInt();
-        int lenStrings = buf.getInt();
-        int lenTotal = buf.getInt();
+        STAGE_NODES = createNodes();
+        createIndexes();
         
-        assert lenTotal == buf.capacity() && lenTotal == 0x10 + lenStrings + numNodes * 0xC;
+        StageTreeModel[] models = new StageTreeModel[NUM_VERSIONS];
         
-        // Read strings from pool
-        String[] strings = new String[numStrings];
-        
-        for (int i = 0 ; i < numStrings ; i++) {
-            byte[] bufString = new byte[buf.getShort() & 0xFFFF];
-            buf.get(bufString);
-            strings[i] = new String(bufString, StandardCharsets.UTF_8);
-        }
+        for (int ver = 0 ; ver < NUM_VERSIONS ; ver++)
+            models[ver] = new StageTreeModel(ROOT_NODE, STAGE_NODES, ver);
         
-        // Parse and create all nodes
-        STAGE_NODES = new StageNode[numNodes];
+        TREE_MODELS = models;
+    }
+    
+    /**
+     * Creates the nodes from the table that is generated from StageNodeInfo.csv at build time. The returned nodes refer to
+     * the root node as their constant ancestor, but they are not attached to the tree.
+     * @return all nodes in file order.
+     */
+    public static StageNode[] createNodes() {
+        long[] packed = StageNodeTable.NODES;
+        StageNode[] nodes = new StageNode[packed.length];
         
         LinkedList<StageNode> stack = new LinkedList();
         stack.add(ROOT_NODE);
         
-        for (int i = 0 ; i < numNodes ; i++) {
-            // Read stage information
-            String name = strings[buf.getShort() & 0xFFFF];
-            int dataId = buf.getShort();
-            int pageId = buf.getShort();
-            int stageType = buf.get();
-            int nodeInfo = buf.get() & 0xFF;
-            int verAndItems = buf.get() & 0xFF;
-            int flags = buf.get() & 0xFF;
-            int challengeTime = buf.getShort();
-            
-            int depth = nodeInfo & 0xF;
-            int iconId = nodeInfo >>> 4;
-            int version = verAndItems & 0xF;
-            int collectItemNum = verAndItems >>> 4;
+        for (int i = 0 ; i < packed.length ; i++) {
+            long info = packed[i];
+            int depth = PackedStageNodes.getDepth(info);
             
             assert depth != 0; // 0 is reserved for root node
             
@@ -97,84 +75,173 @@ public class StageNode extends DefaultMutableTreeNode {
             while(depth < stack.size())
                 stack.removeLast();
             
-            StageNode node = new StageNode(
-                stack.getLast(), name, dataId, pageId, stageType, iconId, version, collectItemNum, flags, challengeTime
-            );
-            STAGE_NODES[i] = node;
+            StageNode node = new StageNode(stack.getLast(), PackedStageNodes.getStageName(info), info);
+            node.tableIndex = i;
+            nodes[i] = node;
             
             if (depth == stack.size())
                 stack.addLast(node);
         }
+        
+        return nodes;
     }
     
     public static StageNode getRootNode() {
         return ROOT_NODE;
     }
     
-    private static boolean checkVersionSupportsStage(StageNode node, int ver) {
-        switch(node.versionThreshold) {
-            case 0: return true;
-            case 1: return ver == KinopioSaveData.VERSION_WII_U;
-            case 2: return ver >= KinopioSaveData.VERSION_SWITCH;
-            case 3: return ver >= KinopioSaveData.VERSION_SWITCH_AOC;
-            case 4: return ver == KinopioSaveData.VERSION_SWITCH_AOC;
-            case 5: return ver == KinopioSaveData.VERSION_SWITCH_VR;
-        }
-        
-        return false;
+    public static int getNumNodes() {
+        return STAGE_NODES.length;
     }
     
-    public static void growTree(int ver) {
-        for (StageNode node : STAGE_NODES) {
-            if (node.constParent == null)
-                break;
-            
-            if (checkVersionSupportsStage(node, ver) && !node.isHideNode())
-                node.constParent.add(node);
-            else
-                node.removeFromParent();
-        }
+    /**
+     * Returns the node at the given index in StageNodeInfo.csv's order.
+     * @param index the node's index, see {@link #getTableIndex()}.
+     * @return the node.
+     */
+    public static StageNode getNode(int index) {
+        return STAGE_NODES[index];
     }
     
-    private static void collectSeasonPagesWithPredicate(List<StageNode> output, int version, int season, Predicate<StageNode> pred) {
-        output.clear();
-        
-        // Find season node beginning
-        int seasonStartIdx = -1;
+    // -------------------------------------------------------------------------------------------------------------------------
+    // Indexes, created once during initialization
+    
+    public static final int ATTRIBUTE_BADGE_CONDITION  = 0;
+    public static final int ATTRIBUTE_CHALLENGE_TIME   = 1;
+    public static final int ATTRIBUTE_DLC_COLLECT_ITEM = 2;
+    
+    private static final int NUM_VERSIONS = KinopioSaveData.VERSION_SWITCH_VR + 1;
+    private static final int NUM_DATA_IDS = 256; // data IDs are stored as unsigned bytes
+    
+    private static StageNode[][] COURSE_NODES;     // [version][courseId]
+    private static StageNode[][] NAMED_NODES;      // [version][index in StageNodeTable.NAMES]
+    private static int[][] SEASON_PAGE_RANGES;     // [version][seasonId * 2] start, [seasonId * 2 + 1] end (exclusive)
+    private static BitSet[][] ATTRIBUTE_NODES;     // [version][attribute]
+    
+    private static void createIndexes() {
+        COURSE_NODES = new StageNode[NUM_VERSIONS][NUM_DATA_IDS];
+        NAMED_NODES = new StageNode[NUM_VERSIONS][StageNodeTable.NAMES.length];
+        SEASON_PAGE_RANGES = new int[NUM_VERSIONS][NUM_DATA_IDS * 2];
+        ATTRIBUTE_NODES = new BitSet[NUM_VERSIONS][3];
         
-        for (int i = 0 ; i < STAGE_NODES.length ; i++) {
-            StageNode node = STAGE_NODES[i];
+        for (int ver = 0 ; ver < NUM_VERSIONS ; ver++) {
+            BitSet[] attributes = ATTRIBUTE_NODES[ver];
+            
+            for (int i = 0 ; i < attributes.length ; i++)
+                attributes[i] = new BitSet(STAGE_NODES.length);
             
-            if (node.getSeasonId() == season && checkVersionSupportsStage(node, version)) {
-                seasonStartIdx = i + 1;
-                break;
+            int season = -1;
+            
+            for (int i = 0 ; i < STAGE_NODES.length ; i++) {
+                StageNode node = STAGE_NODES[i];
+                
+                if (!checkVersionSupportsStage(node, ver))
+                    continue;
+                
+                // A season's pages range from the node after it to the next season node of this version
+                if (node.isSeason()) {
+                    if (season >= 0)
+                        SEASON_PAGE_RANGES[ver][season * 2 + 1] = i;
+                    
+                    season = node.getSeasonId();
+                    SEASON_PAGE_RANGES[ver][season * 2] = i + 1;
+                }
+                else if (COURSE_NODES[ver][node.getCourseId()] == null)
+                    COURSE_NODES[ver][node.getCourseId()] = node;
+                
+                int nameIndex = StageNodeTable.getNameIndex(StageNodeTable.NODES[i]);
+                
+                if (NAMED_NODES[ver][nameIndex] == null)
+                    NAMED_NODES[ver][nameIndex] = node;
+                
+                attributes[ATTRIBUTE_BADGE_CONDITION].set(i, node.hasBadgeCondition());
+                attributes[ATTRIBUTE_CHALLENGE_TIME].set(i, node.hasChallengeTime());
+                attributes[ATTRIBUTE_DLC_COLLECT_ITEM].set(i, node.hasDlcCollectItem());
             }
+            
+            if (season >= 0)
+                SEASON_PAGE_RANGES[ver][season * 2 + 1] = STAGE_NODES.length;
         }
+    }
+    
+    /**
+     * Looks up the node that holds a course's information in the given game version.
+     * @param version the game version.
+     * @param courseId the course ID.
+     * @return the course's node or null if there is none.
+     */
+    public static StageNode getCourseNode(int version, int courseId) {
+        if (courseId < 0 || courseId >= NUM_DATA_IDS)
+            return null;
+        return COURSE_NODES[version][courseId];
+    }
+    
+    /**
+     * Looks up a node by its stage name using a binary search over the sorted stage names.
+     * @param version the game version.
+     * @param stageName the stage name, for example "PullUpStage".
+     * @return the first node with this name in the given game version or null if there is none.
+     */
+    public static StageNode findNode(int version, String stageName) {
+        int nameIndex = Arrays.binarySearch(StageNodeTable.NAMES, stageName);
+        
+        if (nameIndex < 0)
+            return null;
+        return NAMED_NODES[version][nameIndex];
+    }
+    
+    /**
+     * Returns the indexes of all nodes in the given game version that have an attribute.
+     * @param version the game version.
+     * @param attribute one of the ATTRIBUTE constants.
+     * @return a copy of the node index set, see {@link #getNode(int)}.
+     */
+    public static BitSet getNodesWithAttribute(int version, int attribute) {
+        return (BitSet)ATTRIBUTE_NODES[version][attribute].clone();
+    }
+    
+    public static int countNodesWithAttribute(int version, int attribute) {
+        return ATTRIBUTE_NODES[version][attribute].cardinality();
+    }
+    
+    static boolean checkVersionSupportsStage(StageNode node, int ver) {
+        return PackedStageNodes.checkVersionThreshold(node.versionThreshold, ver);
+    }
+    
+    /**
+     * Returns the immutable stage tree of a game version.
+     * @param version the game version.
+     * @return the version's tree model.
+     */
+    public static StageTreeModel getTreeModel(int version) {
+        return TREE_MODELS[version];
+    }
+    
+    private static void collectSeasonPagesWithPredicate(List<StageNode> output, int version, int season, Predicate<StageNode> pred) {
+        output.clear();
         
-        // No season start found -> no valid season
-        if (seasonStartIdx < 0)
+        // Empty range -> no valid season
+        if (season < 0 || season >= NUM_DATA_IDS)
             return;
         
+        int start = SEASON_PAGE_RANGES[version][season * 2];
+        int end = SEASON_PAGE_RANGES[version][season * 2 + 1];
+        
         // Collect pages
-        for (int i = seasonStartIdx ; i < STAGE_NODES.length ; i++) {
+        for (int i = start ; i < end ; i++) {
             StageNode node = STAGE_NODES[i];
             
-            if (!checkVersionSupportsStage(node, version))
-                continue;
-            if (node.isSeason())
-                break;
-            
-            if (pred.test(node))
+            if (checkVersionSupportsStage(node, version) && pred.test(node))
                 output.add(node);
         }
     }
     
     public static void collectSeasonActualPages(List<StageNode> output, int version, int season) {
-        collectSeasonPagesWithPredicate(output, version, season, (n) -> 0 <= n.pageId && n.pageId < 100 );
+        collectSeasonPagesWithPredicate(output, version, season, (n) -> 0 <= n.getPageId() && n.getPageId() < 100 );
     }
     
     public static void collectSeasonValidBonusPages(List<StageNode> output, int version, int season) {
-        collectSeasonPagesWithPredicate(output, version, season, (n) -> n.pageId >= 0 && n.isNormalStage() && !n.isBonusStage() );
+        collectSeasonPagesWithPredicate(output, version, season, (n) -> n.getPageId() >= 0 && n.isNormalStage() && !n.isBonusStage() );
     }
     
     // -------------------------------------------------------------------------------------------------------------------------
@@ -197,52 +264,112 @@ public class StageNode extends DefaultMutableTreeNode {
     public static final int TYPE_LABYRINTH         = 14; // MoleMazeStage
     public static final int TYPE_NOT_A_STAGE       = -1; // used by category nodes that do not hold stage info
     
-    private static final int FLAG_HAS_DOT_KINOPIO            = 0b000001;
-    private static final int FLAG_HAS_DLC_COLLECT_ITEM       = 0b000010;
-    private static final int FLAG_HAS_BADGE_CONDITION        = 0b000100;
-    private static final int FLAG_HAS_CHALLENGE_TIME         = 0b001000;
-    private static final int FLAG_IS_VR_USE_ORIGINAL_PREVIEW = 0b010000;
-    private static final int FLAG_HAS_PREVIEW_IMAGE          = 0b100000;
-    
     // -------------------------------------------------------------------------------------------------------------------------
     // Actual StageNode implementation
     
     private final StageNode constParent;
     private final String stageName;
-    private final int dataId, pageId, stageType, iconId, versionThreshold, collectItemNum, flags, challengeTime;
+    private final int nameTextId, badgeConditionTextId;
+    private final int courseId, seasonId, pageId, stageType, depth, iconId, versionThreshold, collectItemNum, flags;
+    private final int challengeTime;
+    private int tableIndex = -1;
+    private String label; // name in the current localization, see toString()
+    private int labelGeneration = -1;
     
     private StageNode() {
-        this(null, "Root", -1, -1, TYPE_NOT_A_STAGE, 0, 0, 0, 0, 0);
+        this(null, "Root", StageNodeTable.pack(0, -1, -1, TYPE_NOT_A_STAGE, 0, 0, 0, 0, 0, 0));
     }
     
-    private StageNode(StageNode parent, String name, int id, int page, int type, int icon, int version, int items, int flgs, int time) {
+    private StageNode(StageNode parent, String name, long packed) {
         constParent = parent;
-        
         stageName = name;
-        dataId = id;
-        pageId = page;
-        stageType = type;
-        iconId = icon;
-        versionThreshold = version;
-        collectItemNum = items;
-        flags = flgs;
-        challengeTime = time;
+        courseId = PackedStageNodes.getCourseId(packed);
+        seasonId = PackedStageNodes.getSeasonId(packed);
+        pageId = PackedStageNodes.getPageId(packed);
+        stageType = PackedStageNodes.getStageType(packed);
+        depth = PackedStageNodes.getDepth(packed);
+        iconId = PackedStageNodes.getIconId(packed);
+        versionThreshold = PackedStageNodes.getVersionThreshold(packed);
+        collectItemNum = PackedStageNodes.getCollectItemNum(packed);
+        flags = PackedStageNodes.getFlags(packed);
+        challengeTime = PackedStageNodes.getChallengeTime(packed);
+        nameTextId = Localization.getTextId("stage.name." + name);
+        badgeConditionTextId = Localization.getTextId("stage.badgeCondition0." + name);
+    }
+    
+    /**
+     * Returns the stage's name in the current localization. The stage tree's renderer calls this on every paint, so the
+     * name is kept until the localization changes.
+     * @return the localized name.
+     */
+    @Override
+    public String toString() {
+        int generation = Localization.getGeneration();
+        
+        if (labelGeneration != generation) {
+            label = getLocalizedName(Localization.getLocalization());
+            labelGeneration = generation;
+        }
+        
+        return label;
     }
     
-    public String toString() {
-        return Localization.getLocalization().getText(String.format("stage.name.%s", stageName));
+    /**
+     * Returns the stage's name in the given localization. Unlike {@link #toString()}, this does not depend on the
+     * editor's current language and may be used from any thread.
+     * @param localization the localization.
+     * @return the localized name.
+     */
+    public String getLocalizedName(Localization localization) {
+        return localization.getText(nameTextId);
+    }
+    
+    /**
+     * Returns the text ID of the stage's badge condition. Only stages that have a badge condition have an actual text.
+     * @return the text ID, see {@link Localization#getTextId(String)}.
+     */
+    public int getBadgeConditionTextId() {
+        return badgeConditionTextId;
+    }
+    
+    /**
+     * Returns the parent node in the tree of all stages, regardless of the game version.
+     * @return the parent node or null for the root node.
+     */
+    public StageNode getParent() {
+        return constParent;
+    }
+    
+    public boolean isRoot() {
+        return constParent == null;
+    }
+    
+    /**
+     * Returns the node's depth in the tree of all stages. The root node is at depth 0.
+     * @return the depth.
+     */
+    public int getDepth() {
+        return depth;
     }
     
     public String getStageName() {
         return stageName;
     }
     
+    /**
+     * Returns this node's index in StageNodeInfo.csv's order.
+     * @return the index or -1 for the root node.
+     */
+    public int getTableIndex() {
+        return tableIndex;
+    }
+    
     public int getCourseId() {
-        return stageType != TYPE_SEASON ? dataId : -1;
+        return courseId;
     }
     
     public int getSeasonId() {
-        return stageType == TYPE_SEASON ? dataId : -1;
+        return seasonId;
     }
     
     public int getPageId() {
@@ -266,62 +393,62 @@ public class StageNode extends DefaultMutableTreeNode {
     }
     
     public boolean isSeason() {
-        return stageType == TYPE_SEASON;
+        return getStageType() == TYPE_SEASON;
     }
     
     public boolean isIllustration() {
-        return stageType == TYPE_ILLUSTRATION || stageType == TYPE_ILLUSTRATION_DEMO;
+        return getStageType() == TYPE_ILLUSTRATION || getStageType() == TYPE_ILLUSTRATION_DEMO;
     }
     
     public boolean isNormalStage() {
-        return stageType >= TYPE_NORMAL;
+        return getStageType() >= TYPE_NORMAL;
     }
     
     public boolean isPrologueStage() {
-        return stageType == TYPE_PROLOGUE;
+        return getStageType() == TYPE_PROLOGUE;
     }
     
     public boolean isBonusStage() {
-        return stageType == TYPE_BONUS;
+        return getStageType() == TYPE_BONUS;
     }
     
     public boolean isMiniGameStage() {
-        return stageType == TYPE_MINI_GAME;
+        return getStageType() == TYPE_MINI_GAME;
     }
     
     public boolean isManeckFinalFloorCountStage() {
-        return stageType == TYPE_SPECIAL_OTHER;
+        return getStageType() == TYPE_SPECIAL_OTHER;
     }
     
     public boolean isMoleMazeFinalFloorCountStage() {
-        return stageType == TYPE_LABYRINTH;
+        return getStageType() == TYPE_LABYRINTH;
     }
     
     public boolean hasDotKinopio() {
-        return (flags & FLAG_HAS_DOT_KINOPIO) != 0;
+        return (flags & PackedStageNodes.FLAG_HAS_DOT_KINOPIO) != 0;
     }
     
     public boolean hasDlcCollectItem() {
-        return (flags & FLAG_HAS_DLC_COLLECT_ITEM) != 0;
+        return (flags & PackedStageNodes.FLAG_HAS_DLC_COLLECT_ITEM) != 0;
     }
     
     public boolean hasBadgeCondition() {
-        return (flags & FLAG_HAS_BADGE_CONDITION) != 0;
+        return (flags & PackedStageNodes.FLAG_HAS_BADGE_CONDITION) != 0;
     }
     
     public boolean hasChallengeTime() {
-        return (flags & FLAG_HAS_CHALLENGE_TIME) != 0;
+        return (flags & PackedStageNodes.FLAG_HAS_CHALLENGE_TIME) != 0;
     }
     
     public boolean isVRUseOriginalPreview() {
-        return (flags & FLAG_IS_VR_USE_ORIGINAL_PREVIEW) != 0;
+        return (flags & PackedStageNodes.FLAG_IS_VR_USE_ORIGINAL_PREVIEW) != 0;
     }
     
     public boolean hasPreviewImage() {
-        return (flags & FLAG_HAS_PREVIEW_IMAGE) != 0;
+        return (flags & PackedStageNodes.FLAG_HAS_PREVIEW_IMAGE) != 0;
     }
     
     public boolean isHideNode() {
-        return stageType == TYPE_PROLOGUE || stageType == TYPE_MINI_GAME || stageType == TYPE_TRICK_ART;
+        return getStageType() == TYPE_PROLOGUE || getStageType() == TYPE_MINI_GAME || getStageType() == TYPE_TRICK_ART;
     }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.format;
+
+import com.aurumsmods.ctse.diag.FlightEvents;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JTree;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * The stage tree of a single game version. Its structure is built once during {@link StageNode#init()} and never changes
+ * afterwards, so switching versions only means switching models, and several trees may show different versions at the
+ * same time. Stages that the version does not support and hidden stages are left out.
+ * <p>
+ * The structure is kept in flat arrays that are indexed by slot, which is a node's table index plus one. The root node
+ * occupies slot 0. The children of a slot are {@code childSlots[childStart[slot]]} up to, but excluding,
+ * {@code childSlots[childStart[slot + 1]]}.
+ * @author Aurum
+ */
+public final class StageTreeModel implements TreeModel {
+    private final int version;
+    private final StageNode root;
+    private final StageNode[] nodes; // [table index]
+    private final int[] childStart;  // [slot], one more entry than there are slots
+    private final int[] childSlots;
+    private final int[] indexInParent; // [slot], -1 if not visible
+    private final List<StageNode> visibleNodes;
+    private final TreePath rootPath;
+    private final TreePath[] expandablePaths;
+    private final EventListenerList listeners = new EventListenerList();
+    
+    StageTreeModel(StageNode root, StageNode[] nodes, int version) {
+        FlightEvents.TreeGrow event = FlightEvents.beginTreeGrow();
+        this.version = version;
+        this.root = root;
+        this.nodes = nodes;
+        rootPath = new TreePath(root);
+        
+        int numSlots = nodes.length + 1;
+        int[] parentSlots = new int[numSlots];
+        int[] childCounts = new int[numSlots];
+        StageNode[] preorder = new StageNode[nodes.length];
+        int numVisible = 0;
+        
+        indexInParent = new int[numSlots];
+        Arrays.fill(indexInParent, -1);
+        indexInParent[0] = 0;
+        
+        // Parents always precede their children, so a node's visibility is known once its parent has been visited. The
+        // table is in pre-order, so the visible nodes come out in pre-order, too.
+        for (StageNode node : nodes) {
+            int slot = node.getTableIndex() + 1;
+            int parentSlot = node.getParent().getTableIndex() + 1;
+            
+            if (indexInParent[parentSlot] < 0 || !StageNode.checkVersionSupportsStage(node, version) || node.isHideNode())
+                continue;
+            
+            parentSlots[slot] = parentSlot;
+            indexInParent[slot] = childCounts[parentSlot]++;
+            preorder[numVisible++] = node;
+        }
+        
+        childStart = new int[numSlots + 1];
+        
+        for (int slot = 0 ; slot < numSlots ; slot++)
+            childStart[slot + 1] = childStart[slot] + childCounts[slot];
+        
+        childSlots = new int[numVisible];
+        
+        for (int i = 0 ; i < numVisible ; i++) {
+            int slot = preorder[i].getTableIndex() + 1;
+            childSlots[childStart[parentSlots[slot]] + indexInParent[slot]] = slot;
+        }
+        
+        visibleNodes = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(preorder, numVisible)));
+        expandablePaths = createExpandablePaths(preorder, numVisible);
+        FlightEvents.commit(event, version, numVisible);
+    }
+    
+    private TreePath[] createExpandablePaths(StageNode[] preorder, int numVisible) {
+        // Each path extends the path of its parent, which is always on the stack because of the pre-order
+        TreePath[] paths = new TreePath[numVisible];
+        TreePath[] stack = new TreePath[numVisible + 1];
+        int numPaths = 0;
+        stack[0] = rootPath;
+        
+        for (int i = 0 ; i < numVisible ; i++) {
+            StageNode node = preorder[i];
+            int slot = node.getTableIndex() + 1;
+            
+            if (childStart[slot] == childStart[slot + 1])
+                continue;
+            
+            int depth = node.getDepth();
+            TreePath path = stack[depth - 1].pathByAddingChild(node);
+            stack[depth] = path;
+            paths[numPaths++] = path;
+        }
+        
+        return Arrays.copyOf(paths, numPaths);
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns all nodes of this tree except for the root node in pre-order.
+     * @return an unmodifiable list of the visible nodes.
+     */
+    public List<StageNode> getVisibleNodes() {
+        return visibleNodes;
+    }
+    
+    public boolean isVisible(StageNode node) {
+        return indexInParent[node.getTableIndex() + 1] >= 0;
+    }
+    
+    /**
+     * Creates the path from the root node to the given node.
+     * @param node the stage node.
+     * @return the node's path or null if the node is not part of this tree.
+     */
+    public TreePath getPath(StageNode node) {
+        if (!isVisible(node))
+            return null;
+        if (node == root)
+            return rootPath;
+        
+        return getPath(node.getParent()).pathByAddingChild(node);
+    }
+    
+    /**
+     * Expands all nodes that have children. The paths are created only once per model and are expanded parents first,
+     * so the tree does not need to expand any ancestors on its own.
+     * @param tree the tree that shows this model.
+     */
+    public void expandAll(JTree tree) {
+        for (TreePath path : expandablePaths)
+            tree.expandPath(path);
+    }
+    
+    /**
+     * Notifies the listeners that the labels of all nodes may have changed, for example after a language change. This
+     * fires one {@code treeNodesChanged} event per parent node, so the tree keeps its expansion and selection.
+     */
+    public void relabel() {
+        fireLabelsChanged(this, listeners);
+    }
+    
+    void fireLabelsChanged(Object source, EventListenerList listeners) {
+        Object[] list = listeners.getListenerList();
+        
+        if (list.length == 0)
+            return;
+        
+        fireChildrenChanged(source, list, rootPath);
+        
+        for (TreePath path : expandablePaths)
+            fireChildrenChanged(source, list, path);
+    }
+    
+    private void fireChildrenChanged(Object source, Object[] list, TreePath path) {
+        StageNode[] children = getChildren((StageNode)path.getLastPathComponent());
+        int[] indices = new int[children.length];
+        
+        for (int i = 0 ; i < indices.length ; i++)
+            indices[i] = i;
+        
+        TreeModelEvent event = new TreeModelEvent(source, path, indices, children);
+        
+        for (int i = list.length - 2 ; i >= 0 ; i -= 2) {
+            if (list[i] == TreeModelListener.class)
+                ((TreeModelListener)list[i + 1]).treeNodesChanged(event);
+        }
+    }
+    
+    /**
+     * Copies the children of a node in this tree.
+     * @param parent the parent node, which has to be visible in this tree.
+     * @return a new array of the children.
+     */
+    StageNode[] getChildren(StageNode parent) {
+        int slot = slotOf(parent);
+        StageNode[] children = new StageNode[childStart[slot + 1] - childStart[slot]];
+        
+        for (int i = 0 ; i < children.length ; i++)
+            children[i] = nodeAt(childSlots[childStart[slot] + i]);
+        
+        return children;
+    }
+    
+    private static int slotOf(Object node) {
+        return ((StageNode)node).getTableIndex() + 1;
+    }
+    
+    private StageNode nodeAt(int slot) {
+        return slot == 0 ? root : nodes[slot - 1];
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // TreeModel implementation
+    
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+    
+    @Override
+    public Object getChild(Object parent, int index) {
+        int slot = slotOf(parent);
+        
+        if (index < 0 || index >= childStart[slot + 1] - childStart[slot])
+            return null;
+        return nodeAt(childSlots[childStart[slot] + index]);
+    }
+    
+    @Override
+    public int getChildCount(Object parent) {
+        int slot = slotOf(parent);
+        return childStart[slot + 1] - childStart[slot];
+    }
+    
+    @Override
+    public boolean isLeaf(Object node) {
+        return getChildCount(node) == 0;
+    }
+    
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // Stage trees are immutable, an edit that some UI might still attempt is ignored
+    }
+    
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null)
+            return -1;
+        
+        StageNode node = (StageNode)child;
+        
+        if (node.getParent() != parent || !isVisible(node))
+            return -1;
+        return indexInParent[slotOf(node)];
+    }
+    
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+    
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+}
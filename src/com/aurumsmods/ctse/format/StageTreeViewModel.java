@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2022 - 2025 Aurum
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aurumsmods.ctse.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.JTree;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Presents one {@link StageTreeModel} at a time to a tree. Switching to the model of another game version fires the
+ * insertions and removals between both trees instead of a structure change, so the tree keeps the layout, expansion and
+ * selection of all nodes that are part of both versions.
+ * @author Aurum
+ */
+public final class StageTreeViewModel implements TreeModel {
+    private StageTreeModel model;
+    private StageNode[][] transition; // [table index + 1], children that differ from the model's while switching
+    private final EventListenerList listeners = new EventListenerList();
+    
+    public StageTreeViewModel(StageTreeModel model) {
+        this.model = model;
+    }
+    
+    public StageTreeModel getModel() {
+        return model;
+    }
+    
+    /**
+     * Switches to another version's tree. First, the nodes that the new tree does not contain are removed, then the new
+     * nodes are inserted. Newly inserted nodes are collapsed, see {@link #expandAll(JTree)}.
+     * @param newModel the tree to be shown.
+     */
+    public void setModel(StageTreeModel newModel) {
+        StageTreeModel oldModel = model;
+        
+        if (newModel == oldModel)
+            return;
+        
+        // Collect all parents that are part of both trees but whose children differ
+        List<StageNode> changedParents = new ArrayList();
+        List<StageNode[]> oldChildLists = new ArrayList();
+        List<StageNode[]> newChildLists = new ArrayList();
+        
+        collectChangedParents(oldModel, newModel, (StageNode)oldModel.getRoot(), changedParents, oldChildLists, newChildLists);
+        
+        if (changedParents.isEmpty()) {
+            model = newModel;
+            return;
+        }
+        
+        transition = new StageNode[StageNode.getNumNodes() + 1][];
+        
+        // The children of a changed parent are switched to the nodes that are kept right before their removal is fired
+        for (int i = 0 ; i < changedParents.size() ; i++) {
+            StageNode parent = changedParents.get(i);
+            StageNode[] oldChildren = oldChildLists.get(i);
+            StageNode[] kept = keep(oldChildren, newModel);
+            
+            transition[parent.getTableIndex() + 1] = kept;
+            
+            if (kept.length != oldChildren.length)
+                fireChildrenRemoved(oldModel.getPath(parent), oldChildren, newModel);
+        }
+        
+        model = newModel;
+        
+        for (int i = 0 ; i < changedParents.size() ; i++) {
+            StageNode parent = changedParents.get(i);
+            StageNode[] newChildren = newChildLists.get(i);
+            StageNode[] kept = transition[parent.getTableIndex() + 1];
+            
+            transition[parent.getTableIndex() + 1] = null;
+            
+            if (kept.length != newChildren.length)
+                fireChildrenInserted(newModel.getPath(parent), newChildren, oldModel);
+        }
+        
+        transition = null;
+    }
+    
+    private static void collectChangedParents(StageTreeModel oldModel, StageTreeModel newModel, StageNode parent,
+            List<StageNode> changedParents, List<StageNode[]> oldChildLists, List<StageNode[]> newChildLists)
+    {
+        StageNode[] oldChildren = oldModel.getChildren(parent);
+        StageNode[] newChildren = newModel.getChildren(parent);
+        
+        if (!Arrays.equals(oldChildren, newChildren)) {
+            changedParents.add(parent);
+            oldChildLists.add(oldChildren);
+            newChildLists.add(newChildren);
+        }
+        
+        // Only nodes that are part of both trees can have changed children, the others are removed or inserted as a whole
+        for (StageNode child : oldChildren) {
+            if (newModel.isVisible(child) && !oldModel.isLeaf(child))
+                collectChangedParents(oldModel, newModel, child, changedParents, oldChildLists, newChildLists);
+        }
+    }
+    
+    private static StageNode[] keep(StageNode[] children, StageTreeModel model) {
+        int count = 0;
+        
+        for (StageNode child : children) {
+            if (model.isVisible(child))
+                count++;
+        }
+        
+        StageNode[] kept = new StageNode[count];
+        count = 0;
+        
+        for (StageNode child : children) {
+            if (model.isVisible(child))
+                kept[count++] = child;
+        }
+        
+        return kept;
+    }
+    
+    /**
+     * Expands all nodes that have children. Nodes that are already expanded are left as they are.
+     * @param tree the tree that shows this model.
+     */
+    public void expandAll(JTree tree) {
+        model.expandAll(tree);
+    }
+    
+    /**
+     * Notifies the listeners that the labels of all nodes may have changed, for example after a language change. The
+     * tree keeps its expansion and selection.
+     */
+    public void relabel() {
+        model.fireLabelsChanged(this, listeners);
+    }
+    
+    private void fireChildrenRemoved(TreePath parentPath, StageNode[] oldChildren, StageTreeModel newModel) {
+        fireChildren(parentPath, oldChildren, newModel, false);
+    }
+    
+    private void fireChildrenInserted(TreePath parentPath, StageNode[] newChildren, StageTreeModel oldModel) {
+        fireChildren(parentPath, newChildren, oldModel, true);
+    }
+    
+    private void fireChildren(TreePath parentPath, StageNode[] children, StageTreeModel otherModel, boolean inserted) {
+        // The indices refer to the children list that contains the nodes, and they are sorted in ascending order
+        List<StageNode> changed = new ArrayList();
+        int[] indices = new int[children.length];
+        
+        for (int i = 0 ; i < children.length ; i++) {
+            if (!otherModel.isVisible(children[i])) {
+                indices[changed.size()] = i;
+                changed.add(children[i]);
+            }
+        }
+        
+        TreeModelEvent event = new TreeModelEvent(this, parentPath, Arrays.copyOf(indices, changed.size()),
+                changed.toArray());
+        Object[] list = listeners.getListenerList();
+        
+        for (int i = list.length - 2 ; i >= 0 ; i -= 2) {
+            if (list[i] == TreeModelListener.class) {
+                if (inserted)
+                    ((TreeModelListener)list[i + 1]).treeNodesInserted(event);
+                else
+                    ((TreeModelListener)list[i + 1]).treeNodesRemoved(event);
+            }
+        }
+    }
+    
+    private StageNode[] getTransitionChildren(Object parent) {
+        return transition != null ? transition[((StageNode)parent).getTableIndex() + 1] : null;
+    }
+    
+    // -------------------------------------------------------------------------------------------------------------------------
+    // TreeModel implementation
+    
+    @Override
+    public Object getRoot() {
+        return model.getRoot();
+    }
+    
+    @Override
+    public Object getChild(Object parent, int index) {
+        StageNode[] children = getTransitionChildren(parent);
+        
+        if (children == null)
+            return model.getChild(parent, index);
+        return 0 <= index && index < children.length ? children[index] : null;
+    }
+    
+    @Override
+    public int getChildCount(Object parent) {
+        StageNode[] children = getTransitionChildren(parent);
+        return children != null ? children.length : model.getChildCount(parent);
+    }
+    
+    @Override
+    public boolean isLeaf(Object node) {
+        return getChildCount(node) == 0;
+    }
+    
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // Stage trees are immutable, an edit that some UI might still attempt is ignored
+    }
+    
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        StageNode[] children = getTransitionChildren(parent);
+        
+        if (children == null)
+            return model.getIndexOfChild(parent, child);
+        
+        for (int i = 0 ; i < children.length ; i++) {
+            if (children[i] == child)
+                return i;
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+    
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+}